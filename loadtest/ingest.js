@@ -0,0 +1,52 @@
+// k6 load test for the invoice ingestion endpoint.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=200 -e DURATION=2m loadtest/ingest.js
+//
+// Each request posts the sample invoice with a unique P_2 so every request is a distinct invoice.
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const LINES = parseInt(__ENV.LINES || '10');
+
+export const options = {
+    vus: parseInt(__ENV.VUS || '100'),
+    duration: __ENV.DURATION || '1m',
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+// Follows the FA(2) schema, header and mandatory Adnotacje included, so it also passes strict
+// validation; the totals match the lines.
+function invoice(number) {
+    let lines = '';
+    for (let i = 1; i <= LINES; i++) {
+        lines += `<FaWiersz><NrWierszaFa>${i}</NrWierszaFa><P_7>Pozycja ${i}</P_7><P_8A>szt.</P_8A><P_8B>1</P_8B>`
+            + `<P_9A>100.00</P_9A><P_11>100.00</P_11><P_12>23</P_12></FaWiersz>`;
+    }
+    const net = (LINES * 100).toFixed(2);
+    const vat = (LINES * 23).toFixed(2);
+    const gross = (LINES * 123).toFixed(2);
+    return '<Faktura xmlns="http://crd.gov.pl/wzor/2023/06/29/12648/">'
+        + '<Naglowek><KodFormularza kodSystemowy="FA (2)" wersjaSchemy="1-0E">FA</KodFormularza>'
+        + '<WariantFormularza>2</WariantFormularza><DataWytworzeniaFa>2023-08-31T12:00:00Z</DataWytworzeniaFa>'
+        + '<SystemInfo>k6</SystemInfo></Naglowek>'
+        + '<Podmiot1><DaneIdentyfikacyjne><NIP>9781399259</NIP><Nazwa>Sprzedawca Sp. z o.o.</Nazwa></DaneIdentyfikacyjne>'
+        + '<Adres><KodKraju>PL</KodKraju><AdresL1>ul. Prosta 1</AdresL1></Adres></Podmiot1>'
+        + '<Podmiot2><DaneIdentyfikacyjne><NIP>5260250274</NIP><Nazwa>Klient S.A.</Nazwa></DaneIdentyfikacyjne></Podmiot2>'
+        + `<Fa><KodWaluty>PLN</KodWaluty><P_1>2023-08-31</P_1><P_2>LT/${number}</P_2>`
+        + `<P_13_1>${net}</P_13_1><P_14_1>${vat}</P_14_1><P_15>${gross}</P_15>`
+        + '<Adnotacje><P_16>2</P_16><P_17>2</P_17><P_18>2</P_18><P_18A>2</P_18A>'
+        + '<Zwolnienie><P_19N>1</P_19N></Zwolnienie><NoweSrodkiTransportu><P_22N>1</P_22N></NoweSrodkiTransportu>'
+        + '<P_23>2</P_23><PMarzy><P_PMarzyN>1</P_PMarzyN></PMarzy></Adnotacje>'
+        + `<RodzajFaktury>VAT</RodzajFaktury>${lines}</Fa></Faktura>`;
+}
+
+export default function () {
+    const number = `${__VU}/${__ITER}/${Date.now()}`;
+    const body = JSON.stringify({ base64xml: encoding.b64encode(invoice(number)) });
+    const res = http.post(`${BASE_URL}/api/invoices`, body, {
+        headers: { 'Content-Type': 'application/json' },
+    });
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
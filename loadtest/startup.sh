@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request: starts the application with the given command and reports how
+# long it took until readiness was reported and until the first API request was answered.
+#
+#   loadtest/startup.sh java -jar target/invoice-0.0.1-SNAPSHOT.jar
+#   cd target/faststart && ../../loadtest/startup.sh java -XX:SharedArchiveFile=invoice.jsa \
+#       -Dspring.aot.enabled=true -Dspring.profiles.active=faststart -jar invoice-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+
+millis() { date +%s%3N; }
+
+start=$(millis)
+"$@" > startup.log 2>&1 &
+pid=$!
+trap 'kill $pid 2>/dev/null; wait $pid 2>/dev/null || true' EXIT
+
+until curl -sf "$BASE_URL/actuator/health/readiness" > /dev/null; do
+  kill -0 $pid 2>/dev/null || { echo "application exited, see startup.log" >&2; exit 1; }
+  sleep 0.05
+done
+ready=$(millis)
+
+curl -sf "$BASE_URL/api/invoices?limit=1" > /dev/null
+first=$(millis)
+
+echo "ready after          $((ready - start)) ms"
+echo "first request after  $((first - start)) ms"
+curl -s "$BASE_URL/actuator/prometheus" | grep -E '^(invoice_startup_|application_(started|ready)_time)' || true
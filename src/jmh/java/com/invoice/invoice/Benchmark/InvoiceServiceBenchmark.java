@@ -0,0 +1,193 @@
+package com.invoice.invoice.Benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Cache.LocalInvalidationChannel;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Io.ContentEncodings;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
+import com.invoice.invoice.Repository.InvoiceOutboxRepository;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
+import com.invoice.invoice.Service.Impl.InvoiceServiceImpl;
+import com.invoice.invoice.Service.Impl.SellerSummaryServiceImpl;
+import com.invoice.invoice.Xml.XmlConcurrencyLimiter;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@code InvoiceServiceImpl} end to end in both extraction modes, with the repository and
+ * duplicate detection stubbed out so only the CPU-side work is measured. Compares the JSON and
+ * Base64 request bodies with raw XML, plain and gzip or zstd compressed as the request filter
+ * would decode it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class InvoiceServiceBenchmark {
+
+    @Param({"1", "300", "30000"})
+    private int lines;
+
+    @Param({"STREAMING", "DOM"})
+    private InvoiceProperties.ExtractionMode mode;
+
+    private InvoiceServiceImpl invoiceService;
+    private String base64;
+    private byte[] base64Bytes;
+    private byte[] jsonBytes;
+    private byte[] xmlBytes;
+    private byte[] gzipBytes;
+    private byte[] zstdBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        InvoiceProperties properties = new InvoiceProperties();
+        properties.getExtraction().setMode(mode);
+        XmlConcurrencyLimiter xmlLimiter = new XmlConcurrencyLimiter(properties);
+        InvoiceRepository repo = discardingRepository(InvoiceRepository.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        invoiceService = new InvoiceServiceImpl(repo, SyntheticInvoices.xmlService(), properties,
+                xmlLimiter, new NoDeduplication(), new InvoiceMetrics(registry, xmlLimiter),
+                new SellerSummaryServiceImpl(repo, new LocalInvalidationChannel(), properties, registry),
+                new InvoiceOutbox(discardingRepository(InvoiceOutboxRepository.class), new ObjectMapper().findAndRegisterModules()),
+                new TransactionTemplate(new NoTransactions()));
+        xmlBytes = SyntheticInvoices.xml(lines);
+        base64 = SyntheticInvoices.base64(xmlBytes);
+        base64Bytes = base64.getBytes(StandardCharsets.US_ASCII);
+        jsonBytes = ("{\"base64xml\":\"" + base64 + "\"}").getBytes(StandardCharsets.US_ASCII);
+        gzipBytes = gzip(xmlBytes);
+        zstdBytes = zstd(xmlBytes);
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processInvoice() {
+        return invoiceService.processInvoice(base64);
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processInvoiceStream() {
+        return invoiceService.processInvoiceStream(new ByteArrayInputStream(base64Bytes));
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processInvoiceJson() {
+        return invoiceService.processInvoiceJson(new ByteArrayInputStream(jsonBytes), null);
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processXmlStream() {
+        return invoiceService.processXmlStream(new ByteArrayInputStream(xmlBytes), null);
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processXmlStreamGzip() throws IOException {
+        return invoiceService.processXmlStream(
+                ContentEncodings.decode(new ByteArrayInputStream(gzipBytes), "gzip"), null);
+    }
+
+    @Benchmark
+    public InvoiceDto.InvoiceResponse processXmlStreamZstd() throws IOException {
+        return invoiceService.processXmlStream(
+                ContentEncodings.decode(new ByteArrayInputStream(zstdBytes), "zstd"), null);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] data) {
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] out = new byte[compressor.maxCompressedLength(data.length)];
+        int length = compressor.compress(data, 0, data.length, out, 0, out.length);
+        return Arrays.copyOf(out, length);
+    }
+
+    private static <T> T discardingRepository(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save", "saveAll" -> args[0];
+                    case "flush" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    private static final class NoTransactions extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private static final class NoDeduplication implements InvoiceDeduplicator {
+        @Override
+        public Optional<Long> findRecent(String contentHash, String idempotencyKey) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Long> findStored(String contentHash, String idempotencyKey) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Long> findStored(Invoice invoice) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Long> findConflicting(Invoice invoice) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void remember(Invoice invoice) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.invoice.invoice.Benchmark;
+
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Entity.InvoiceLine;
+import com.invoice.invoice.InvoiceApplication;
+import com.invoice.invoice.Service.Impl.InvoiceBatchWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the write path against a real PostgreSQL database, with the application's default
+ * settings and with the {@code perf} profile. Saves chunks of invoices with their lines as the
+ * batch and archive endpoints do, and single invoices from several threads as concurrent uploads
+ * do; throughput is reported in invoices per second.
+ *
+ * <p>Needs a scratch database (every run adds rows):
+ * {@code -Djmh.args="PersistenceBenchmark -jvmArgsAppend -Dspring.datasource.url=jdbc:postgresql://localhost:5432/loadtest"}.
+ * The default profile prints every statement to stdout, which is part of what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PersistenceBenchmark {
+
+    private static final int CHUNK = 500;
+    private static final int LINES = 5;
+
+    @Param({"default", "perf"})
+    private String profile;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private ConfigurableApplicationContext context;
+    private InvoiceBatchWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(InvoiceApplication.class)
+                .web(WebApplicationType.NONE);
+        if (!profile.equals("default")) {
+            application.profiles(profile);
+        }
+        context = application.run();
+        writer = context.getBean(InvoiceBatchWriter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public List<InvoiceBatchWriter.Result> saveChunk() {
+        List<Invoice> invoices = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            invoices.add(invoice());
+        }
+        return writer.write(invoices);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<InvoiceBatchWriter.Result> saveConcurrently() {
+        return writer.write(List.of(invoice()));
+    }
+
+    private Invoice invoice() {
+        long n = sequence.incrementAndGet();
+        Invoice invoice = new Invoice();
+        invoice.setNip(String.format("%010d", n % 10_000_000_000L));
+        invoice.setP1(LocalDate.of(2025, 1, 1).plusDays(n % 365));
+        invoice.setP2("LOAD/" + run + "/" + n);
+        invoice.setCurrency("PLN");
+        invoice.setNetTotal(new BigDecimal("1000.00"));
+        invoice.setVatTotal(new BigDecimal("230.00"));
+        invoice.setGrossTotal(new BigDecimal("1230.00"));
+        for (int i = 1; i <= LINES; i++) {
+            InvoiceLine line = new InvoiceLine();
+            line.setLineNumber(i);
+            line.setName("Service " + i);
+            line.setUnit("szt.");
+            line.setQuantity(new BigDecimal("2"));
+            line.setUnitNetPrice(new BigDecimal("100.00"));
+            line.setNetAmount(new BigDecimal("200.00"));
+            line.setGrossAmount(new BigDecimal("246.00"));
+            line.setVatRate("23");
+            invoice.addLine(line);
+        }
+        return invoice;
+    }
+}
@@ -0,0 +1,115 @@
+package com.invoice.invoice.Benchmark;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.SchemaDto;
+import com.invoice.invoice.Service.SchemaRegistry;
+import com.invoice.invoice.Service.Impl.XmlServiceImpl;
+import com.invoice.invoice.Xml.XmlParsers;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Generates FA(2)-shaped invoices with a given number of line items. A line is about 340 bytes on
+ * top of a 1 KB header, so 1, 300 and 30 000 lines give documents of about 1 KB, 100 KB and 10 MB.
+ */
+final class SyntheticInvoices {
+
+    static final String NAMESPACE_URI = "http://crd.gov.pl/wzor/2023/06/29/12648/";
+
+    private SyntheticInvoices() {
+    }
+
+    static byte[] xml(int lines) {
+        StringBuilder xml = new StringBuilder(1024 + lines * 350);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<tns:Faktura xmlns:tns=\"").append(NAMESPACE_URI).append("\">\n")
+                .append("    <tns:Naglowek>\n")
+                .append("        <tns:KodFormularza kodSystemowy=\"FA (2)\" wersjaSchemy=\"1-0E\">FA</tns:KodFormularza>\n")
+                .append("        <tns:WariantFormularza>2</tns:WariantFormularza>\n")
+                .append("    </tns:Naglowek>\n")
+                .append("    <tns:Podmiot1>\n")
+                .append("        <tns:DaneIdentyfikacyjne>\n")
+                .append("            <tns:NIP>9781399259</tns:NIP>\n")
+                .append("            <tns:Nazwa>Przedsiębiorstwo Handlowe Sp. z o.o.</tns:Nazwa>\n")
+                .append("        </tns:DaneIdentyfikacyjne>\n")
+                .append("    </tns:Podmiot1>\n")
+                .append("    <tns:Podmiot2>\n")
+                .append("        <tns:DaneIdentyfikacyjne>\n")
+                .append("            <tns:NIP>5260250274</tns:NIP>\n")
+                .append("        </tns:DaneIdentyfikacyjne>\n")
+                .append("    </tns:Podmiot2>\n")
+                .append("    <tns:Fa>\n")
+                .append("        <tns:KodWaluty>PLN</tns:KodWaluty>\n")
+                .append("        <tns:P_1>2023-08-31</tns:P_1>\n")
+                .append("        <tns:P_2>FV/2023/08/").append(lines).append("</tns:P_2>\n");
+        for (int i = 1; i <= lines; i++) {
+            xml.append("        <tns:FaWiersz>\n")
+                    .append("            <tns:NrWierszaFa>").append(i).append("</tns:NrWierszaFa>\n")
+                    .append("            <tns:P_7>Usługa doradcza ").append(i).append("</tns:P_7>\n")
+                    .append("            <tns:P_8A>szt.</tns:P_8A>\n")
+                    .append("            <tns:P_8B>2</tns:P_8B>\n")
+                    .append("            <tns:P_9A>100.00</tns:P_9A>\n")
+                    .append("            <tns:P_11>200.00</tns:P_11>\n")
+                    .append("            <tns:P_12>23</tns:P_12>\n")
+                    .append("        </tns:FaWiersz>\n");
+        }
+        xml.append("    </tns:Fa>\n")
+                .append("</tns:Faktura>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String base64(byte[] xml) {
+        return Base64.getEncoder().encodeToString(xml);
+    }
+
+    /**
+     * Xml service validating against the permissive test schema, with a fresh validator per
+     * lease the way the registry behaves on a pool miss.
+     */
+    static XmlServiceImpl xmlService() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new ClassPathResource("schemas/faktura-lax.xsd").getURL());
+        SchemaRegistry schemaRegistry = new SchemaRegistry() {
+            @Override
+            public Optional<ValidatorLease> borrowValidator(String namespace) {
+                if (!NAMESPACE_URI.equals(namespace)) {
+                    return Optional.empty();
+                }
+                Validator validator = schema.newValidator();
+                return Optional.of(new ValidatorLease() {
+                    @Override
+                    public Validator validator() {
+                        return validator;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+            }
+
+            @Override
+            public boolean isRegistered(String namespace) {
+                return NAMESPACE_URI.equals(namespace);
+            }
+
+            @Override
+            public void reload() {
+            }
+
+            @Override
+            public List<SchemaDto.SchemaStatistics> getStatistics() {
+                return List.of();
+            }
+        };
+        return new XmlServiceImpl(schemaRegistry, new InvoiceProperties(), new XmlParsers());
+    }
+}
@@ -0,0 +1,100 @@
+package com.invoice.invoice.Benchmark;
+
+import com.invoice.invoice.Xml.XmlParsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call factory lookup (the previous {@code parseXml}/{@code extractNip} implementation) against
+ * the shared, pooled {@link XmlParsers}. Small documents show the fixed per-call cost best; run
+ * with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(4)
+public class XmlParsersBenchmark {
+
+    private static final String NIP_EXPRESSION = "//fa:Podmiot1/fa:DaneIdentyfikacyjne/fa:NIP";
+
+    private static final NamespaceContext NAMESPACES = new NamespaceContext() {
+        @Override
+        public String getNamespaceURI(String prefix) {
+            return "fa".equals(prefix) ? SyntheticInvoices.NAMESPACE_URI : null;
+        }
+
+        @Override
+        public String getPrefix(String uri) {
+            return null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String uri) {
+            return null;
+        }
+    };
+
+    @Param({"1", "300"})
+    private int lines;
+
+    private XmlParsers parsers;
+    private XmlParsers.CompiledXPath nipXPath;
+    private byte[] xml;
+    private Document document;
+
+    @Setup
+    public void setUp() throws Exception {
+        parsers = new XmlParsers();
+        nipXPath = parsers.compile(NIP_EXPRESSION, NAMESPACES);
+        xml = SyntheticInvoices.xml(lines);
+        document = parsers.parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Document parseWithNewFactory() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Document parseWithPooledBuilder() throws Exception {
+        return parsers.parse(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Node xpathWithNewFactory() throws Exception {
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        xpath.setNamespaceContext(NAMESPACES);
+        return (Node) xpath.evaluate(NIP_EXPRESSION, document, XPathConstants.NODE);
+    }
+
+    @Benchmark
+    public Node xpathPrecompiled() throws Exception {
+        return nipXPath.evaluateNode(document);
+    }
+}
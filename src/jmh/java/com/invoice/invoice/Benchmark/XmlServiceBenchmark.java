@@ -0,0 +1,127 @@
+package com.invoice.invoice.Benchmark;
+
+import com.invoice.invoice.Io.Base64Decoding;
+import com.invoice.invoice.Service.Impl.XmlServiceImpl;
+import com.invoice.invoice.Xml.ExtractedFields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Individual stages of the invoice pipeline: Base64 decoding, DOM parsing, validation and the DOM
+ * (XPath) and streaming (StAX) field extraction. Run with {@code -prof gc} for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class XmlServiceBenchmark {
+
+    @Param({"1", "300", "30000"})
+    private int lines;
+
+    private XmlServiceImpl xmlService;
+    private byte[] xml;
+    private String base64;
+    private byte[] base64Bytes;
+    private byte[] decodeBuffer;
+    private Document document;
+
+    @Setup
+    public void setUp() throws Exception {
+        xmlService = SyntheticInvoices.xmlService();
+        xml = SyntheticInvoices.xml(lines);
+        base64 = SyntheticInvoices.base64(xml);
+        base64Bytes = base64.getBytes(StandardCharsets.US_ASCII);
+        decodeBuffer = new byte[Base64Decoding.maxDecodedLength(base64.length())];
+        document = xmlService.parseXml(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public byte[] decodeBase64Jdk() {
+        return Base64.getMimeDecoder().decode(base64);
+    }
+
+    @Benchmark
+    public byte[] decodeBase64() {
+        return xmlService.decodeBase64(base64);
+    }
+
+    /**
+     * Decoding into a reused buffer, as {@code InvoiceServiceImpl} does with its pooled buffers;
+     * compare {@code gc.alloc.rate.norm} with {@link #decodeBase64()}.
+     */
+    @Benchmark
+    public int decodeBase64Pooled() {
+        return xmlService.decodeBase64(base64, decodeBuffer);
+    }
+
+    @Benchmark
+    public long decodeBase64Stream() throws IOException {
+        try (InputStream decoded = xmlService.decodeBase64(new ByteArrayInputStream(base64Bytes))) {
+            return decoded.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public Document parseXml() {
+        return xmlService.parseXml(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Document validateXml() {
+        xmlService.validateXml(document);
+        return document;
+    }
+
+    @Benchmark
+    public String extractNip() {
+        return xmlService.extractNip(document);
+    }
+
+    @Benchmark
+    public String extractP1() {
+        return xmlService.extractP1(document);
+    }
+
+    @Benchmark
+    public String extractP2() {
+        return xmlService.extractP2(document);
+    }
+
+    @Benchmark
+    public ExtractedFields extractFieldsDom() {
+        return xmlService.extractFields(document);
+    }
+
+    @Benchmark
+    public ExtractedFields extractFieldsStreaming() {
+        return xmlService.extractFields(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public ExtractedFields validateAndExtract() {
+        return xmlService.validateAndExtract(new ByteArrayInputStream(xml), e -> {
+            throw e;
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.invoice.invoice.Admission;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * Global limit on ingest requests in flight that follows the measured latency (AIMD): every
+ * request finished within the target latency while the limit is in use raises it by
+ * {@code 1 / limit}, so about one per round of requests; a slower or overloaded request cuts it
+ * by the backoff ratio. Requests over the limit are rejected at once instead of queueing for
+ * Tomcat threads and database connections. Both counters are updated with compare-and-set only.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final InvoiceProperties.Admission config;
+    private final LongSupplier nanoTime;
+    private final long targetLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Double bits of the current limit; fractional so additive increase can be spread over a round.
+    private final AtomicLong limitBits;
+    private final Counter rejected;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(InvoiceProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(InvoiceProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.config = properties.getAdmission();
+        this.nanoTime = nanoTime;
+        this.targetLatencyNanos = config.getTargetLatency().toNanos();
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(config.getInitialLimit()));
+        this.rejected = Counter.builder("invoice.admission.rejected")
+                .description("Requests turned away by admission control, by reason")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        Gauge.builder("invoice.admission.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive limit of ingest requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("invoice.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Ingest requests admitted and not yet finished")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request or fails with {@link TooManyRequestsException}. Every admitted request
+     * must be followed by exactly one {@link #release}, which gets the returned start time.
+     */
+    public long acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                rejected.increment();
+                throw new TooManyRequestsException("Too many invoices are being processed, please retry later",
+                        RETRY_AFTER);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return nanoTime.getAsLong();
+            }
+        }
+    }
+
+    /**
+     * Finishes an admitted request and adjusts the limit.
+     *
+     * @param startNanos what {@link #acquire} returned
+     * @param overloaded whether it failed because the service was out of capacity
+     * @param sample     whether its latency says anything about load; fast client errors and
+     *                   long-running bulk requests do not
+     */
+    public void release(long startNanos, boolean overloaded, boolean sample) {
+        long latencyNanos = nanoTime.getAsLong() - startNanos;
+        int current = inFlight.getAndDecrement();
+        if (overloaded || (sample && latencyNanos > targetLatencyNanos)) {
+            update(limit -> Math.max(config.getMinLimit(), limit * config.getBackoffRatio()));
+        } else if (sample && current * 2 >= limit()) {
+            update(limit -> Math.min(config.getMaxLimit(), limit + 1.0 / limit));
+        }
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,87 @@
+package com.invoice.invoice.Admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client request rate limit, one {@link TokenBucket} per client key, under a ceiling per remote
+ * address. Client keys come from request headers nobody authenticates, so the address bucket is
+ * checked first: a request it turns away creates no client bucket, and rotating keys from one
+ * address neither adds budget nor pushes other clients' buckets out. A bucket left alone for
+ * {@code burst / rate} is full again, the same as a new one, so idle buckets are evicted after that
+ * long without changing any limit; both bucket counts are capped as well.
+ */
+@Component
+public class ClientRateLimiter {
+
+    private final InvoiceProperties.Admission config;
+    private final LongSupplier nanoTime;
+    private final Cache<String, TokenBucket> addresses;
+    private final Cache<String, TokenBucket> clients;
+    private final Counter rejected;
+
+    @Autowired
+    public ClientRateLimiter(InvoiceProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    ClientRateLimiter(InvoiceProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.config = properties.getAdmission();
+        this.nanoTime = nanoTime;
+        this.addresses = buckets(config.getAddressRatePerSecond(), config.getAddressBurst());
+        this.clients = buckets(config.getRatePerSecond(), config.getBurst());
+        this.rejected = Counter.builder("invoice.admission.rejected")
+                .description("Requests turned away by admission control, by reason")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+        Gauge.builder("invoice.admission.clients", clients, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+        Gauge.builder("invoice.admission.addresses", addresses, Cache::estimatedSize)
+                .description("Remote addresses with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one request from the budget of the remote address and then from that of the client,
+     * or fails with {@link TooManyRequestsException} telling when the next request would be
+     * accepted.
+     */
+    public void acquire(String address, String client) {
+        take(addresses, address, config.getAddressRatePerSecond(), config.getAddressBurst());
+        take(clients, client, config.getRatePerSecond(), config.getBurst());
+    }
+
+    private void take(Cache<String, TokenBucket> buckets, String key, double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(ratePerSecond, burst, now));
+        long wait = bucket.tryTake(now);
+        if (wait > 0) {
+            rejected.increment();
+            throw new TooManyRequestsException("Rate limit of " + ratePerSecond
+                    + " invoice requests per second exceeded, please retry later", Duration.ofNanos(wait));
+        }
+    }
+
+    private Cache<String, TokenBucket> buckets(double ratePerSecond, int burst) {
+        Duration refill = Duration.ofNanos(ratePerSecond > 0 ? (long) (burst * 1_000_000_000.0 / ratePerSecond) : 0);
+        return Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .ticker(nanoTime::getAsLong)
+                .expireAfterAccess(refill.plusSeconds(1))
+                .build();
+    }
+}
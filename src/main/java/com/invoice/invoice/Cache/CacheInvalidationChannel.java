@@ -0,0 +1,22 @@
+package com.invoice.invoice.Cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between application instances. Local caches are updated directly by
+ * the instance that saved the data; every other instance drops the affected key when it hears
+ * about the change.
+ */
+public interface CacheInvalidationChannel {
+
+    /**
+     * Tells the other instances that {@code key} of {@code cache} changed.
+     */
+    void publish(String cache, String key);
+
+    /**
+     * Registers the handlers of one cache. {@code invalidateAll} is called when invalidations may
+     * have been missed, for example after the channel reconnected.
+     */
+    void subscribe(String cache, Consumer<String> invalidate, Runnable invalidateAll);
+}
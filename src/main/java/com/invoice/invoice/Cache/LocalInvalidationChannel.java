@@ -0,0 +1,23 @@
+package com.invoice.invoice.Cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel for a single instance: there is nobody to notify, so entries only go stale on other
+ * instances until their TTL expires.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.cache.invalidation", havingValue = "none", matchIfMissing = true)
+public class LocalInvalidationChannel implements CacheInvalidationChannel {
+
+    @Override
+    public void publish(String cache, String key) {
+    }
+
+    @Override
+    public void subscribe(String cache, Consumer<String> invalidate, Runnable invalidateAll) {
+    }
+}
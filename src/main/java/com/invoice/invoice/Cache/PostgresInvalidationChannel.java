@@ -0,0 +1,124 @@
+package com.invoice.invoice.Cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation over PostgreSQL {@code LISTEN/NOTIFY}, so instances sharing the database need no
+ * extra infrastructure. The listener keeps one pooled connection for itself. Notifications sent
+ * while it is disconnected are lost, so every cache is cleared when it reconnects.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.cache.invalidation", havingValue = "postgres")
+@Slf4j
+public class PostgresInvalidationChannel implements CacheInvalidationChannel {
+
+    private static final String CHANNEL = "invoice_cache_invalidation";
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+    private Thread listener;
+
+    public PostgresInvalidationChannel(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    void start() {
+        listener = Thread.ofPlatform().name("invoice-cache-listener").daemon(true).start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        listener.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void publish(String cache, String key) {
+        try {
+            jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, instanceId + '|' + cache + '|' + key);
+        } catch (Exception e) {
+            // The write already succeeded; other instances catch up when their entry expires.
+            log.warn("Failed to publish invalidation of {} in cache {}: {}", key, cache, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String cache, Consumer<String> invalidate, Runnable invalidateAll) {
+        subscriptions.computeIfAbsent(cache, c -> new CopyOnWriteArrayList<>())
+                .add(new Subscription(invalidate, invalidateAll));
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    subscriptions.values().forEach(list -> list.forEach(s -> s.invalidateAll.run()));
+                    log.info("Cache invalidation listener reconnected, cleared local caches");
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                reconnecting = true;
+                log.warn("Cache invalidation listener lost its connection, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        List<Subscription> list = subscriptions.get(parts[1]);
+        if (list != null) {
+            list.forEach(s -> s.invalidate.accept(parts[2]));
+        }
+    }
+
+    private record Subscription(Consumer<String> invalidate, Runnable invalidateAll) {
+    }
+}
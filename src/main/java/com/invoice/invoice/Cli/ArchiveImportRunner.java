@@ -0,0 +1,62 @@
+package com.invoice.invoice.Cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Service.ArchiveImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+/**
+ * Imports the archives listed in {@code invoice.archive.import-paths} and exits, writing each
+ * report next to its archive as {@code <archive>.report.json}. The exit code is 1 if any entry
+ * or archive failed:
+ * <pre>
+ * java -jar invoice.jar --spring.main.web-application-type=none \
+ *     --invoice.archive.import-paths=/data/2024-05.zip,/data/2024-06.tar.gz
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(prefix = "invoice.archive", name = "import-paths")
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveImportRunner implements ApplicationRunner {
+
+    private final ArchiveImportService archiveImportService;
+    private final InvoiceProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean failed = false;
+        for (String location : properties.getArchive().getImportPaths()) {
+            Path archive = Paths.get(location);
+            try (InputStream in = Files.newInputStream(archive)) {
+                InvoiceDto.ArchiveReport report = archiveImportService.importArchive(
+                        in, archive.getFileName().toString(), UUID.randomUUID());
+                Path reportFile = archive.resolveSibling(archive.getFileName() + ".report.json");
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+                log.info("Report of {} written to {}", archive, reportFile);
+                failed |= report.getStatus() != InvoiceDto.ArchiveStatus.COMPLETED || report.getFailed() > 0;
+            } catch (Exception e) {
+                log.error("Failed to import archive {}: {}", archive, e.getMessage());
+                failed = true;
+            }
+        }
+        int exitCode = failed ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -0,0 +1,71 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Admission.AdaptiveConcurrencyLimiter;
+import com.invoice.invoice.Admission.ClientRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.List;
+
+/**
+ * Admission control for the ingest endpoints: the rate limits of the remote address and the
+ * client first, then the global adaptive concurrency limit. Rejected requests get {@code 429}
+ * before their body is read. The seller NIP inside the invoice is only known after parsing, which
+ * is the work being shed, so clients are told apart by header ({@code X-Api-Key},
+ * {@code X-Seller-Nip}) or remote address. Bulk endpoints take a slot in the concurrency limit
+ * but do not feed their latency into it, as they are slow by design.
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final String STARTED = AdmissionControlInterceptor.class.getName() + ".started";
+
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final List<String> clientHeaders;
+    private final boolean sampleLatency;
+
+    public AdmissionControlInterceptor(ClientRateLimiter rateLimiter,
+                                       AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                       InvoiceProperties properties,
+                                       boolean sampleLatency) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientHeaders = List.copyOf(properties.getAdmission().getClientHeaders());
+        this.sampleLatency = sampleLatency;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        rateLimiter.acquire(request.getRemoteAddr(), client(request));
+        request.setAttribute(STARTED, concurrencyLimiter.acquire());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(STARTED) instanceof Long started)) {
+            return;
+        }
+        request.removeAttribute(STARTED);
+        int status = response.getStatus();
+        boolean overloaded = status == HttpStatus.SERVICE_UNAVAILABLE.value();
+        boolean sample = sampleLatency && (status < 400 || status >= 500);
+        concurrencyLimiter.release(started, overloaded, sample);
+    }
+
+    private String client(HttpServletRequest request) {
+        for (String header : clientHeaders) {
+            String value = request.getHeader(header);
+            if (StringUtils.hasText(value)) {
+                return header + ':' + value.trim();
+            }
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,42 @@
+package com.invoice.invoice.Config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    public static final String INVOICE_PARSING_EXECUTOR = "invoiceParsingExecutor";
+
+    @Bean(name = INVOICE_PARSING_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor invoiceParsingExecutor(InvoiceProperties properties) {
+        InvoiceProperties.Batch batch = properties.getBatch();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batch.getParallelism());
+        executor.setMaxPoolSize(batch.getParallelism());
+        executor.setQueueCapacity(batch.getChunkSize());
+        executor.setThreadNamePrefix("invoice-parse-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled=true} every batch item gets its own virtual thread;
+     * the concurrency limit keeps a huge batch from spawning all of them at once, and the CPU-heavy
+     * part is additionally capped by {@code XmlConcurrencyLimiter}.
+     */
+    @Bean(name = INVOICE_PARSING_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualInvoiceParsingExecutor(InvoiceProperties properties) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("invoice-parse-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(properties.getBatch().getChunkSize());
+        return executor;
+    }
+}
@@ -0,0 +1,50 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Measures time-to-first-request: from JVM start until the first API request has been answered,
+ * which is what an autoscaled instance is waiting for. Health probes and other actuator requests
+ * do not count. After the first request the filter is skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FirstRequestFilter extends OncePerRequestFilter {
+
+    private final InvoiceMetrics metrics;
+
+    private volatile boolean recorded;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return recorded || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recorded = true;
+            Duration uptime = Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+            if (metrics.firstRequest(uptime)) {
+                log.info("First request {} {} answered {} ms after JVM start",
+                        request.getMethod(), request.getRequestURI(), uptime.toMillis());
+            }
+        }
+    }
+}
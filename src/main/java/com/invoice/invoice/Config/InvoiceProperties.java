@@ -0,0 +1,377 @@
+package com.invoice.invoice.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "invoice")
+public class InvoiceProperties {
+
+    private Schema schema = new Schema();
+
+    private Extraction extraction = new Extraction();
+
+    private Batch batch = new Batch();
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Ingest ingest = new Ingest();
+
+    private Dedup dedup = new Dedup();
+
+    private Cache cache = new Cache();
+
+    private Payload payload = new Payload();
+
+    private Archive archive = new Archive();
+
+    private Validation validation = new Validation();
+
+    private Outbox outbox = new Outbox();
+
+    private Partitions partitions = new Partitions();
+
+    private Admission admission = new Admission();
+
+    private Warmup warmup = new Warmup();
+
+    @Data
+    public static class Schema {
+        /**
+         * Resource pattern of the bundled XSD files, compiled once and keyed by target namespace.
+         */
+        private String locations = "classpath*:xsd/*.xsd";
+
+        /**
+         * Compile every registered schema at startup instead of on first use.
+         */
+        private boolean eager = true;
+
+        /**
+         * Optional directory with XSD files that override the bundled ones and are reloaded on change.
+         */
+        private String reloadDirectory;
+
+        private Duration reloadInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Extraction {
+        private ExtractionMode mode = ExtractionMode.STREAMING;
+
+        /**
+         * Additional fields to extract, keyed by name, each with element paths in priority order
+         * (e.g. {@code Podmiot2/DaneIdentyfikacyjne/NIP}).
+         */
+        private Map<String, List<String>> fields = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Invoices parsed concurrently and written in one JDBC batch / transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Threads parsing batch items; defaults to the number of available processors.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Concurrency {
+        /**
+         * Invoices parsed and validated at the same time across all requests. Streaming requests
+         * hold a permit while their body is read, hence the headroom over the processor count.
+         */
+        private int xmlPermits = Runtime.getRuntime().availableProcessors() * 2;
+
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Ingest {
+        /**
+         * Directory where accepted payloads are journaled until they are processed, and where the
+         * final status of each ticket is kept.
+         */
+        private String journalDirectory = System.getProperty("java.io.tmpdir") + "/invoice-journal";
+
+        private int queueCapacity = 10_000;
+
+        private int workers = 4;
+
+        private DataSize maxPayloadSize = DataSize.ofMegabytes(10);
+
+        private Duration statusRetention = Duration.ofDays(1);
+    }
+
+    @Data
+    public static class Dedup {
+        /**
+         * Content hashes and idempotency keys of recently saved invoices kept in memory, so retried
+         * requests are answered without parsing or touching the database.
+         */
+        private int cacheSize = 100_000;
+    }
+
+    @Data
+    public static class Payload {
+        /**
+         * Largest decoded invoice accepted by the single-invoice endpoints. Larger requests are
+         * rejected with 413, by their {@code Content-Length} up front when they declare one.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(50);
+
+        /**
+         * Decoded invoices above this size are spooled to a temporary file instead of the heap.
+         */
+        private DataSize spillThreshold = DataSize.ofMegabytes(1);
+
+        private String spillDirectory = System.getProperty("java.io.tmpdir") + "/invoice-spool";
+
+        /**
+         * Largest decompressed request body of the batch and archive endpoints when it is sent with
+         * a {@code Content-Encoding}; guards against compression bombs. Single-invoice bodies are
+         * limited by {@code max-size} as they are decompressed.
+         */
+        private DataSize maxDecompressedBulkSize = DataSize.ofGigabytes(4);
+    }
+
+    @Data
+    public static class Validation {
+        /**
+         * Lenient by default, so a deployment without bundled schemas still accepts invoices.
+         */
+        private ValidationMode mode = ValidationMode.LENIENT;
+
+        /**
+         * Cheap checks before the invoice is decoded and parsed: Base64 alphabet, length and
+         * size, and the root element and namespace sniffed from the first few KB.
+         */
+        private boolean prevalidate = true;
+    }
+
+    @Data
+    public static class Archive {
+        /**
+         * Entries read from one archive before the rest is rejected; guards against archive bombs.
+         * Each entry is also limited to {@code invoice.payload.max-size}.
+         */
+        private int maxEntries = 100_000;
+
+        /**
+         * How long the report of a finished import stays available for polling.
+         */
+        private Duration reportRetention = Duration.ofHours(1);
+
+        /**
+         * Entry results of finished imports kept for polling, across all reports. Once over, the
+         * results of the least recently used reports are dropped first; their counters stay.
+         */
+        private long retainedResults = 200_000;
+
+        /**
+         * Archives to import at startup, after which the application exits; meant for command-line
+         * runs with {@code spring.main.web-application-type=none}.
+         */
+        private List<String> importPaths = new ArrayList<>();
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Sellers whose summary is kept in memory.
+         */
+        private long sellerSummaryMaximumSize = 10_000;
+
+        /**
+         * How long a seller summary is served before it is reloaded; also bounds how stale it can
+         * get when an invalidation from another instance is missed.
+         */
+        private Duration sellerSummaryTtl = Duration.ofMinutes(5);
+
+        /**
+         * Latest invoices included in a seller summary.
+         */
+        private int recentInvoices = 10;
+
+        /**
+         * How cache invalidations reach other instances: {@code none} for a single instance, or
+         * {@code postgres} to use LISTEN/NOTIFY on the application database.
+         */
+        private String invalidation = "none";
+    }
+
+    @Data
+    public static class Outbox {
+        /**
+         * Where the relay publishes change events: {@code memory} (in-process subscribers only),
+         * {@code file} (NDJSON appended to {@link #file}) or {@code webhook} (POSTed to
+         * {@link #webhookUrl}). The change feed is served from the outbox table in every case.
+         */
+        private String sink = "memory";
+
+        /**
+         * How often the relay looks for pending events.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Events published per relay transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * How long published events stay in the outbox and can be read from the change feed.
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        /**
+         * Longest a change feed request waits for new events.
+         */
+        private Duration maxWait = Duration.ofSeconds(30);
+
+        private String file = System.getProperty("java.io.tmpdir") + "/invoice-changes.ndjson";
+
+        private String webhookUrl;
+
+        private Duration webhookTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Partitions {
+        /**
+         * Monthly partitions of the invoices table kept ready beyond the current month.
+         */
+        private int createAhead = 3;
+
+        /**
+         * How long invoices are kept, counted from the end of their month; older partitions are
+         * archived and dropped. Unset keeps everything.
+         */
+        private Period retention;
+
+        /**
+         * Where archived partitions are written as gzip-compressed CSV.
+         */
+        private String archiveDirectory = System.getProperty("java.io.tmpdir") + "/invoice-archive";
+
+        /**
+         * When partitions are created and expired ones archived.
+         */
+        private String cron = "0 30 2 * * *";
+    }
+
+    @Data
+    public static class Admission {
+        /**
+         * Rate-limit and admission checks on the ingest endpoints ({@code POST /api/invoices},
+         * {@code /api/invoices/async}, {@code /api/invoices/batch} and {@code /api/archives}).
+         */
+        private boolean enabled = true;
+
+        /**
+         * Request headers identifying the client, tried in order; requests without any of them
+         * are limited by remote address. They are not authenticated, so every request also counts
+         * against the limit of its remote address.
+         */
+        private List<String> clientHeaders = new ArrayList<>(List.of("X-Api-Key", "X-Seller-Nip"));
+
+        /**
+         * Sustained requests per second allowed per client; 0 disables the per-client limit.
+         */
+        private double ratePerSecond = 50;
+
+        /**
+         * Requests a client may send at once after being idle.
+         */
+        private int burst = 100;
+
+        /**
+         * Sustained requests per second and burst allowed per remote address, whatever client
+         * headers the requests carry; 0 disables the address limit. Set above the per-client
+         * limit, so several clients can share a proxy.
+         */
+        private double addressRatePerSecond = 200;
+
+        private int addressBurst = 400;
+
+        /**
+         * Clients, and separately remote addresses, tracked at the same time; the least recently
+         * and frequently seen are forgotten first.
+         */
+        private long maxClients = 100_000;
+
+        /**
+         * Starting point and bounds of the adaptive limit of requests in flight.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 2;
+
+        private int maxLimit = 500;
+
+        /**
+         * Requests slower than this lower the adaptive limit; faster ones raise it.
+         */
+        private Duration targetLatency = Duration.ofSeconds(1);
+
+        /**
+         * Factor the adaptive limit is multiplied by on a slow or overloaded request.
+         */
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class Warmup {
+        /**
+         * Run a sample invoice through the XML paths before the application reports ready.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Passes over the sample, enough for the JIT to compile the parsing and extraction code.
+         */
+        private int iterations = 200;
+
+        private String sample = "classpath:warmup/invoice.xml";
+    }
+
+    public enum ValidationMode {
+        /**
+         * Reject invoices that do not conform to the schema, or whose namespace has no schema. The
+         * application does not start unless the FA(2) schema is registered.
+         */
+        STRICT,
+        /**
+         * Log and count schema violations, then save the invoice anyway if its fields can be read.
+         * Invoices whose namespace has no schema are saved without validation.
+         */
+        LENIENT,
+        /**
+         * Skip schema validation entirely.
+         */
+        OFF
+    }
+
+    public enum ExtractionMode {
+        /**
+         * Single forward StAX pass that stops once every field is found; no DOM is built.
+         */
+        STREAMING,
+        /**
+         * Parse the whole document into a DOM and query it; kept as a fallback.
+         */
+        DOM
+    }
+}
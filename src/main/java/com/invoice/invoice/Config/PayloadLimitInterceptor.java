@@ -0,0 +1,41 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects single-invoice requests whose declared {@code Content-Length} cannot fit the maximum
+ * invoice size before any of the body is read. Bodies without a length are limited while they
+ * are decoded.
+ */
+public class PayloadLimitInterceptor implements HandlerInterceptor {
+
+    // Room for the JSON envelope and escaped line breaks around the Base64 text.
+    private static final long ENVELOPE_ALLOWANCE = 64 * 1024;
+
+    private final long maxRequestSize;
+
+    public PayloadLimitInterceptor(InvoiceProperties properties) {
+        this.maxRequestSize = maxRequestSize(properties);
+    }
+
+    /**
+     * Largest single-invoice request body: the maximum invoice size as Base64 with line breaks,
+     * inside a JSON envelope.
+     */
+    static long maxRequestSize(InvoiceProperties properties) {
+        long maxSize = properties.getPayload().getMaxSize().toBytes();
+        return (maxSize + 2) / 3 * 4 * 105 / 100 + ENVELOPE_ALLOWANCE;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("POST".equals(request.getMethod()) && request.getContentLengthLong() > maxRequestSize) {
+            throw new PayloadTooLargeException("Request of " + request.getContentLengthLong()
+                    + " bytes exceeds the maximum of " + maxRequestSize + " bytes");
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package com.invoice.invoice.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completes and checks the persistence settings of the {@code perf} profile. With {@code perf} or
+ * {@code virtual} the primary pool is sized to the work that can hold connections at the same
+ * time, unless its size is configured explicitly. With {@code perf} startup also fails when a
+ * setting that costs throughput is off, so a mistake in the profile is caught before the instance
+ * takes traffic.
+ */
+@Configuration
+@Slf4j
+public class PerformanceProfileConfig {
+
+    private static final String POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+    private static final int MIN_BATCH_SIZE = 50;
+
+    /**
+     * Connections in use when every XML slot, ingest worker and scheduled job saves at once; saves
+     * follow the XML work, so that bounds the concurrent writers.
+     */
+    static int workerConcurrency(InvoiceProperties properties, Environment environment) {
+        return properties.getConcurrency().getXmlPermits()
+                + properties.getIngest().getWorkers()
+                + environment.getProperty("spring.task.scheduling.pool.size", Integer.class, 1);
+    }
+
+    @Bean
+    @Profile({"perf", "virtual"})
+    static BeanPostProcessor workerSizedConnectionPool(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool && !ReplicaDataSourceConfig.REPLICA_POOL.equals(pool.getPoolName())
+                        && !environment.containsProperty(POOL_SIZE_PROPERTY)) {
+                    InvoiceProperties properties = Binder.get(environment).bindOrCreate("invoice", InvoiceProperties.class);
+                    int size = workerConcurrency(properties, environment);
+                    pool.setMaximumPoolSize(size);
+                    pool.setMinimumIdle(size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @Profile("perf")
+    SmartInitializingSingleton performanceProfileCheck(Environment environment, DataSource dataSource,
+                                                      InvoiceProperties properties) {
+        return () -> {
+            List<String> problems = new ArrayList<>();
+            if (environment.getProperty("spring.jpa.show-sql", Boolean.class, false)) {
+                problems.add("spring.jpa.show-sql must be false");
+            }
+            if (environment.getProperty("spring.jpa.properties.hibernate.format_sql", Boolean.class, false)) {
+                problems.add("hibernate.format_sql must be false");
+            }
+            if (environment.getProperty("spring.jpa.properties.hibernate.generate_statistics", Boolean.class, false)) {
+                problems.add("hibernate.generate_statistics must be false");
+            }
+            if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+                problems.add("spring.jpa.open-in-view must be false");
+            }
+            if (environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", Integer.class, 0) < MIN_BATCH_SIZE) {
+                problems.add("hibernate.jdbc.batch_size must be at least " + MIN_BATCH_SIZE);
+            }
+            if (!environment.getProperty("spring.jpa.properties.hibernate.order_inserts", Boolean.class, false)) {
+                problems.add("hibernate.order_inserts must be true");
+            }
+
+            HikariDataSource pool = primaryPool(dataSource);
+            String url = pool.getJdbcUrl() != null ? pool.getJdbcUrl() : "";
+            if (!"true".equalsIgnoreCase(pool.getDataSourceProperties().getProperty("reWriteBatchedInserts"))
+                    && !url.contains("reWriteBatchedInserts=true")) {
+                problems.add("the PostgreSQL driver needs reWriteBatchedInserts=true");
+            }
+            int required = workerConcurrency(properties, environment);
+            if (pool.getMaximumPoolSize() < required) {
+                problems.add("the connection pool has " + pool.getMaximumPoolSize()
+                        + " connections, fewer than the " + required + " concurrent workers");
+            }
+
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException("perf profile misconfigured: " + String.join("; ", problems));
+            }
+            log.info("perf profile active: pool of {} connections, JDBC batches of {}",
+                    pool.getMaximumPoolSize(), environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size"));
+        };
+    }
+
+    private static HikariDataSource primaryPool(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("The perf profile requires a Hikari connection pool", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Io.ContentEncodings;
+import com.invoice.invoice.Io.LimitedInputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * Decompresses gzip and zstd request bodies sent to the invoice and archive upload endpoints, so
+ * every endpoint sees the plain body. The decoded length is unknown, so {@code Content-Length} is
+ * hidden; instead the decoded stream itself fails with {@code 413} past the largest body the
+ * endpoint accepts, before a compression bomb is inflated any further.
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private final long maxInvoiceRequestSize;
+    private final long maxBulkRequestSize;
+
+    public RequestDecompressionFilter(InvoiceProperties properties) {
+        this.maxInvoiceRequestSize = PayloadLimitInterceptor.maxRequestSize(properties);
+        this.maxBulkRequestSize = properties.getPayload().getMaxDecompressedBulkSize().toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !"POST".equals(request.getMethod())
+                || !(path.startsWith("/api/invoices") || path.startsWith("/api/archives"))
+                || request.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (!ContentEncodings.isSupported(encoding)) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+            return;
+        }
+        String path = path(request);
+        long maxSize = path.startsWith("/api/invoices/batch") || path.startsWith("/api/archives")
+                ? maxBulkRequestSize
+                : maxInvoiceRequestSize;
+        chain.doFilter(new DecompressedRequest(request, encoding, maxSize), response);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+        private final String encoding;
+        private final long maxSize;
+        private ServletInputStream body;
+
+        private DecompressedRequest(HttpServletRequest request, String encoding, long maxSize) {
+            super(request);
+            this.encoding = encoding;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new DecodedInputStream(new LimitedInputStream(
+                        ContentEncodings.decode(super.getInputStream(), encoding), maxSize, "Decompressed request body"));
+            }
+            return body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHidden(name))
+                    .toList());
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class DecodedInputStream extends ServletInputStream {
+        private final InputStream in;
+        private boolean finished;
+
+        private DecodedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            finished = n < 0;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads of decompressed bodies are not supported");
+        }
+    }
+}
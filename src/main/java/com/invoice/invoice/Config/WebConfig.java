@@ -0,0 +1,29 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Admission.AdaptiveConcurrencyLimiter;
+import com.invoice.invoice.Admission.ClientRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final InvoiceProperties properties;
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PayloadLimitInterceptor(properties))
+                .addPathPatterns("/api/invoices", "/api/invoices/async");
+        if (properties.getAdmission().isEnabled()) {
+            registry.addInterceptor(new AdmissionControlInterceptor(rateLimiter, concurrencyLimiter, properties, true))
+                    .addPathPatterns("/api/invoices", "/api/invoices/async");
+            registry.addInterceptor(new AdmissionControlInterceptor(rateLimiter, concurrencyLimiter, properties, false))
+                    .addPathPatterns("/api/invoices/batch", "/api/archives");
+        }
+    }
+}
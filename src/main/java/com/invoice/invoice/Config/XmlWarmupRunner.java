@@ -0,0 +1,76 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Exception.PrevalidationException;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Service.XmlService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Runs a sample invoice through Base64 decoding, prevalidation, schema validation and both
+ * extraction paths before the application reports ready. Spring Boot only switches readiness to
+ * {@code ACCEPTING_TRAFFIC} after all runners finished, so the first real requests do not pay for
+ * class loading, lazy JAXP initialization, validator creation and interpreted code. Nothing is
+ * saved. A failing warm-up is logged and does not stop the application.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "invoice.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class XmlWarmupRunner implements ApplicationRunner {
+
+    private final XmlService xmlService;
+    private final InvoiceProperties properties;
+    private final ResourceLoader resourceLoader;
+    private final InvoiceMetrics metrics;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        InvoiceProperties.Warmup config = properties.getWarmup();
+        long start = System.nanoTime();
+        try {
+            byte[] xml = resourceLoader.getResource(config.getSample()).getContentAsByteArray();
+            String base64 = Base64.getEncoder().encodeToString(xml);
+            // Without a schema for the sample, validation would only log a warning on every pass.
+            boolean validate = hasSchema(xml);
+            for (int i = 0; i < config.getIterations(); i++) {
+                byte[] decoded = xmlService.decodeBase64(base64);
+                xmlService.prevalidate(new ByteArrayInputStream(decoded), false);
+                if (validate) {
+                    xmlService.validateAndExtract(new ByteArrayInputStream(decoded), e -> { });
+                }
+                xmlService.extractFields(new ByteArrayInputStream(decoded));
+                xmlService.extractFields(xmlService.parseXml(new ByteArrayInputStream(decoded)));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("XML warm-up failed, continuing without it: {}", e.getMessage());
+            return;
+        }
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        metrics.warmedUp(took);
+        log.info("Warmed up XML processing with {} passes over {} in {} ms",
+                config.getIterations(), config.getSample(), took.toMillis());
+    }
+
+    private boolean hasSchema(byte[] xml) {
+        try {
+            xmlService.prevalidate(new ByteArrayInputStream(xml), true);
+            return true;
+        } catch (PrevalidationException e) {
+            return false;
+        }
+    }
+}
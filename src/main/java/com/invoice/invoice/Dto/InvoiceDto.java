@@ -1,11 +1,20 @@
 package com.invoice.invoice.Dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
 public class InvoiceDto {
 
     @Data
@@ -20,7 +29,231 @@ public class InvoiceDto {
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class InvoiceResponse {
         private String message;
+        private Long id;
+    }
+
+    public enum TicketStatus {
+        QUEUED,
+        PROCESSING,
+        SAVED,
+        FAILED
+    }
+
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class TicketResponse {
+        private UUID ticket;
+        private TicketStatus status;
+        private Long invoiceId;
+        private String message;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private LocalDateTime acceptedAt;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private LocalDateTime completedAt;
+    }
+
+    public enum BatchItemStatus {
+        SAVED,
+        FAILED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchItemResult {
+        private int index;
+        private BatchItemStatus status;
+        private Long id;
+        private String message;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResponse {
+        private int total;
+        private int saved;
+        private int failed;
+        private List<BatchItemResult> results;
+    }
+
+    public enum ArchiveStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public enum ArchiveEntryStatus {
+        SAVED,
+        DUPLICATE,
+        SKIPPED,
+        FAILED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ArchiveEntryResult {
+        private int index;
+        private String name;
+        private ArchiveEntryStatus status;
+        private Long id;
+        private String message;
+    }
+
+    /**
+     * Progress of an archive import while it runs; once it has finished, also the outcome of
+     * every entry.
+     */
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ArchiveReport {
+        private UUID job;
+        private String archive;
+        private ArchiveStatus status;
+        private String message;
+        private int entries;
+        private int saved;
+        private int duplicates;
+        private int skipped;
+        private int failed;
+        private long bytes;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private LocalDateTime startedAt;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private LocalDateTime completedAt;
+
+        private List<ArchiveEntryResult> results;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InvoiceFilter {
+        private String nip;
+        private LocalDate issuedFrom;
+        private LocalDate issuedTo;
+        private LocalDateTime createdFrom;
+        private LocalDateTime createdTo;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InvoiceSummary {
+        private Long id;
+        private String nip;
+        private LocalDate p1;
+        private String p2;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class InvoicePage {
+        private List<InvoiceSummary> items;
+        /**
+         * Opaque position after the last item; pass it as {@code cursor} to get the next page.
+         * Absent on the last page.
+         */
+        private String nextCursor;
+    }
+
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SellerSummary {
+        private String nip;
+        private long invoiceCount;
+        private List<InvoiceSummary> latestInvoices;
+    }
+
+    public enum ChangeType {
+        CREATED
+    }
+
+    /**
+     * Change event of one invoice, as published by the outbox relay and served by the change feed.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class InvoiceChange {
+        /**
+         * Position in the change feed; pass the last one seen as {@code since}.
+         */
+        private Long position;
+        private ChangeType type;
+        private Long invoiceId;
+        private String nip;
+        private LocalDate p1;
+        private String p2;
+        private String buyerNip;
+        private String currency;
+        private BigDecimal grossTotal;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSSSS")
+        private LocalDateTime occurredAt;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChangePage {
+        private List<InvoiceChange> items;
+        /**
+         * Position of the last item, or the requested {@code since} if there were none; pass it as
+         * {@code since} to continue.
+         */
+        private long nextSince;
+    }
+
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.invoice.invoice.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+public class SchemaDto {
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SchemaStatistics {
+        private String namespace;
+        private String location;
+        private boolean compiled;
+        private long compileTimeMillis;
+        private LocalDateTime compiledAt;
+        private long hits;
+        private long reloads;
+    }
+}
@@ -3,9 +3,23 @@ package com.invoice.invoice.Entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Stored in a table partitioned by month of {@link #createdAt}. Seller and number, content hash and
+ * idempotency key are unique across all partitions through the {@code invoice_keys} table, which a
+ * trigger fills on insert.
+ */
 @Entity
 @Table(name = "invoices")
 @Data
@@ -14,18 +28,67 @@ import java.time.LocalDateTime;
 public class Invoice {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_seq")
+    @SequenceGenerator(name = "invoices_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "nip", nullable = false, length = 20)
+    /**
+     * Seller NIP, always the 10 digits without prefix or separators.
+     */
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "nip", nullable = false, length = 10)
     private String nip;
 
+    /**
+     * Issue date (P_1).
+     */
     @Column(name = "p1", nullable = false)
-    private String p1;
+    private LocalDate p1;
 
+    /**
+     * Invoice number (P_2), unique per seller.
+     */
     @Column(name = "p2", nullable = false)
     private String p2;
 
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "buyer_nip", length = 10)
+    private String buyerNip;
+
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "currency", length = 3)
+    private String currency;
+
+    /**
+     * Sum of the net amounts per VAT rate (P_13_x).
+     */
+    @Column(name = "net_total", precision = 18, scale = 2)
+    private BigDecimal netTotal;
+
+    /**
+     * Sum of the VAT amounts per rate (P_14_x).
+     */
+    @Column(name = "vat_total", precision = 18, scale = 2)
+    private BigDecimal vatTotal;
+
+    /**
+     * Amount due (P_15).
+     */
+    @Column(name = "gross_total", precision = 18, scale = 2)
+    private BigDecimal grossTotal;
+
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL)
+    @OrderBy("lineNumber")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<InvoiceLine> lines = new ArrayList<>();
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -33,4 +96,9 @@ public class Invoice {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
     }
+
+    public void addLine(InvoiceLine line) {
+        line.setInvoice(this);
+        lines.add(line);
+    }
 }
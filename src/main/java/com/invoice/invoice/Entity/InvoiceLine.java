@@ -0,0 +1,80 @@
+package com.invoice.invoice.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * One invoice line (FaWiersz).
+ */
+@Entity
+@Table(name = "invoice_lines")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_lines_seq")
+    @SequenceGenerator(name = "invoice_lines_seq", sequenceName = "invoice_lines_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "invoice_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Invoice invoice;
+
+    /**
+     * NrWierszaFa.
+     */
+    @Column(name = "line_number")
+    private Integer lineNumber;
+
+    /**
+     * P_7.
+     */
+    @Column(name = "name", length = 512)
+    private String name;
+
+    /**
+     * P_8A.
+     */
+    @Column(name = "unit", length = 256)
+    private String unit;
+
+    /**
+     * P_8B.
+     */
+    @Column(name = "quantity", precision = 22, scale = 6)
+    private BigDecimal quantity;
+
+    /**
+     * P_9A.
+     */
+    @Column(name = "unit_net_price", precision = 22, scale = 8)
+    private BigDecimal unitNetPrice;
+
+    /**
+     * P_11.
+     */
+    @Column(name = "net_amount", precision = 18, scale = 2)
+    private BigDecimal netAmount;
+
+    /**
+     * P_11A.
+     */
+    @Column(name = "gross_amount", precision = 18, scale = 2)
+    private BigDecimal grossAmount;
+
+    /**
+     * P_12: a percentage such as {@code 23}, or a code such as {@code zw} or {@code np I}.
+     */
+    @Column(name = "vat_rate", length = 16)
+    private String vatRate;
+}
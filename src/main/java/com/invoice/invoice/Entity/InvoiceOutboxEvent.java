@@ -0,0 +1,56 @@
+package com.invoice.invoice.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change event of an invoice, waiting in the outbox until the relay publishes it.
+ */
+@Entity
+@Table(name = "invoice_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_outbox_seq")
+    @SequenceGenerator(name = "invoice_outbox_seq", sequenceName = "invoice_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    /**
+     * The {@code InvoiceDto.InvoiceChange} as JSON, without its position.
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Position in the change feed, assigned when the event is published; null while pending.
+     */
+    @Column(name = "feed_position", unique = true)
+    private Long position;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,11 @@
+package com.invoice.invoice.Exception;
+
+public class CapacityExceededException extends RuntimeException {
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+
+    public CapacityExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package com.invoice.invoice.Exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
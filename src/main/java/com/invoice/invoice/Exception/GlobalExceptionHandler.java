@@ -1,7 +1,10 @@
 package com.invoice.invoice.Exception;
 
 import com.invoice.invoice.Dto.ErrorResponse;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -18,15 +21,20 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalExceptionHandler {
 
+    private final InvoiceMetrics metrics;
+
     @ExceptionHandler(InvoiceProcessingException.class)
     public ResponseEntity<ErrorResponse> handleInvoiceProcessingException(
             InvoiceProcessingException ex, WebRequest request) {
 
         log.error("Invoice processing error: {}", ex.getMessage(), ex);
 
+        metrics.recordError("INVOICE_PROCESSING_ERROR");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("INVOICE_PROCESSING_ERROR")
                 .message(ex.getMessage())
@@ -42,7 +50,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleXmlValidationException(
             XmlValidationException ex, WebRequest request) {
 
-        log.error("XML validation error: {}", ex.getMessage(), ex);
+        log.warn("XML validation error: {}", ex.getMessage());
+
+        metrics.recordError("XML_VALIDATION_ERROR");
 
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("XML_VALIDATION_ERROR")
@@ -59,7 +69,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleXmlParsingException(
             XmlParsingException ex, WebRequest request) {
 
-        log.error("XML parsing error: {}", ex.getMessage(), ex);
+        log.warn("XML parsing error: {}", ex.getMessage());
+
+        metrics.recordError("XML_PARSING_ERROR");
 
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("XML_PARSING_ERROR")
@@ -76,7 +88,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleBase64DecodingException(
             Base64DecodingException ex, WebRequest request) {
 
-        log.error("Base64 decoding error: {}", ex.getMessage(), ex);
+        log.warn("Base64 decoding error: {}", ex.getMessage());
+
+        metrics.recordError("BASE64_DECODING_ERROR");
 
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("BASE64_DECODING_ERROR")
@@ -89,6 +103,126 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequestException(
+            BadRequestException ex, WebRequest request) {
+
+        log.debug("Bad request: {}", ex.getMessage());
+
+        metrics.recordError("INVALID_REQUEST");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("INVALID_REQUEST")
+                .message(ex.getMessage())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFoundException(
+            NotFoundException ex, WebRequest request) {
+
+        log.debug("Resource not found: {}", ex.getMessage());
+
+        metrics.recordError("NOT_FOUND");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("NOT_FOUND")
+                .message(ex.getMessage())
+                .status(HttpStatus.NOT_FOUND.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflictException(
+            ConflictException ex, WebRequest request) {
+
+        log.warn("Conflict: {}", ex.getMessage());
+
+        metrics.recordError("CONFLICT");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("CONFLICT")
+                .message(ex.getMessage())
+                .status(HttpStatus.CONFLICT.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<ErrorResponse> handleCapacityExceededException(
+            CapacityExceededException ex, WebRequest request) {
+
+        log.warn("Capacity exceeded: {}", ex.getMessage());
+
+        metrics.recordError("SERVICE_BUSY");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("SERVICE_BUSY")
+                .message(ex.getMessage())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(
+            TooManyRequestsException ex, WebRequest request) {
+
+        log.debug("Request rejected by admission control: {}", ex.getMessage());
+
+        metrics.recordError("TOO_MANY_REQUESTS");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("TOO_MANY_REQUESTS")
+                .message(ex.getMessage())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        // Retry-After is in whole seconds; round up so a retry is not turned away again.
+        long retryAfter = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public ResponseEntity<ErrorResponse> handlePayloadTooLargeException(
+            PayloadTooLargeException ex, WebRequest request) {
+
+        log.warn("Payload too large: {}", ex.getMessage());
+
+        metrics.recordError("PAYLOAD_TOO_LARGE");
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .error("PAYLOAD_TOO_LARGE")
+                .message(ex.getMessage())
+                .status(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                .path(getPath(request))
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationErrors(
             MethodArgumentNotValidException ex, WebRequest request) {
@@ -101,6 +235,8 @@ public class GlobalExceptionHandler {
                 .map(this::mapFieldError)
                 .collect(Collectors.toList());
 
+        metrics.recordError("VALIDATION_ERROR");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("VALIDATION_ERROR")
                 .message("Request validation failed")
@@ -119,6 +255,8 @@ public class GlobalExceptionHandler {
 
         log.error("Message not readable error: {}", ex.getMessage());
 
+        metrics.recordError("MALFORMED_REQUEST");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("MALFORMED_REQUEST")
                 .message("Request body is malformed or missing")
@@ -136,6 +274,8 @@ public class GlobalExceptionHandler {
 
         log.error("Media type not supported error: {}", ex.getMessage());
 
+        metrics.recordError("UNSUPPORTED_MEDIA_TYPE");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("UNSUPPORTED_MEDIA_TYPE")
                 .message("Content type '" + ex.getContentType() + "' is not supported. Expected: " +
@@ -154,6 +294,8 @@ public class GlobalExceptionHandler {
 
         log.error("Method not supported error: {}", ex.getMessage());
 
+        metrics.recordError("METHOD_NOT_ALLOWED");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("METHOD_NOT_ALLOWED")
                 .message("HTTP method '" + ex.getMethod() + "' is not supported for this endpoint. " +
@@ -172,6 +314,8 @@ public class GlobalExceptionHandler {
 
         log.error("Method argument type mismatch: {}", ex.getMessage());
 
+        metrics.recordError("INVALID_PARAMETER_TYPE");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("INVALID_PARAMETER_TYPE")
                 .message("Parameter '" + ex.getName() + "' should be of type " +
@@ -190,6 +334,8 @@ public class GlobalExceptionHandler {
 
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
 
+        metrics.recordError("INTERNAL_SERVER_ERROR");
+
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .error("INTERNAL_SERVER_ERROR")
                 .message("An unexpected error occurred. Please try again later.")
@@ -0,0 +1,7 @@
+package com.invoice.invoice.Exception;
+
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
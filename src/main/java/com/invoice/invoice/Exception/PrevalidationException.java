@@ -0,0 +1,19 @@
+package com.invoice.invoice.Exception;
+
+/**
+ * Rejection by the cheap checks that run before an invoice is parsed. The reason is a short tag
+ * for metrics, such as {@code root_element} or {@code namespace}.
+ */
+public class PrevalidationException extends XmlValidationException {
+
+    private final String reason;
+
+    public PrevalidationException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,256 @@
+package com.invoice.invoice.Io;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.invoice.invoice.Exception.Base64DecodingException;
+import com.invoice.invoice.Xml.BoundedPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Base64 decoding straight to bytes. Both the standard and the URL-safe alphabet are accepted,
+ * even mixed, and whitespace such as MIME line breaks is skipped, so payloads need no cleaning
+ * first. Padding is optional. Any other character is rejected with its position.
+ */
+public final class Base64Decoding {
+
+    private static final int INVALID = -1;
+    private static final int WHITESPACE = -2;
+    private static final int PADDING = -3;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] VALUES = new byte[128];
+    private static final ByteArrayPool STREAM_BUFFERS =
+            new ByteArrayPool(BoundedPool.DEFAULT_CAPACITY, STREAM_BUFFER_SIZE);
+
+    static {
+        Arrays.fill(VALUES, (byte) INVALID);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        VALUES['+'] = VALUES['-'] = 62;
+        VALUES['/'] = VALUES['_'] = 63;
+        VALUES[' '] = VALUES['\t'] = VALUES['\r'] = VALUES['\n'] = WHITESPACE;
+        VALUES['='] = PADDING;
+    }
+
+    /**
+     * The same rules for Jackson's {@code JsonParser.readBinaryValue}, which decodes a JSON string
+     * while it is read instead of buffering it: both alphabets, optional padding, and whitespace
+     * (including escaped line breaks) skipped.
+     */
+    public static final Base64Variant JSON = new JsonVariant();
+
+    private Base64Decoding() {
+    }
+
+    /**
+     * Upper bound of the decoded size of {@code length} Base64 characters.
+     */
+    public static int maxDecodedLength(int length) {
+        return (int) ((long) length * 3 / 4 + 2);
+    }
+
+    /**
+     * Checks the alphabet, padding and length of {@code base64} without decoding it and returns
+     * the exact decoded size.
+     */
+    public static int decodedLength(CharSequence base64) {
+        long symbols = 0;
+        int padding = 0;
+        for (int i = 0, length = base64.length(); i < length; i++) {
+            char c = base64.charAt(i);
+            int value = c < 128 ? VALUES[c] : INVALID;
+            if (value >= 0) {
+                if (padding > 0) {
+                    throw new Base64DecodingException("Invalid Base64: data after padding at position " + i);
+                }
+                symbols++;
+            } else if (value == PADDING) {
+                if (symbols % 4 < 2 || symbols % 4 + ++padding > 4) {
+                    throw new Base64DecodingException("Invalid Base64 padding at position " + i);
+                }
+            } else if (value != WHITESPACE) {
+                throw new Base64DecodingException("Invalid Base64 character at position " + i);
+            }
+        }
+        if (symbols % 4 == 1 || padding > 0 && symbols % 4 + padding != 4) {
+            throw new Base64DecodingException("Invalid Base64 length");
+        }
+        return (int) (symbols * 3 / 4);
+    }
+
+    /**
+     * Decodes {@code base64} into {@code target}, which must hold {@link #maxDecodedLength} bytes,
+     * and returns the number of bytes written.
+     */
+    public static int decode(CharSequence base64, byte[] target) {
+        Decoder decoder = new Decoder();
+        int written = 0;
+        for (int i = 0, length = base64.length(); i < length; i++) {
+            written = decoder.accept(base64.charAt(i), i, target, written);
+        }
+        return decoder.finish(target, written);
+    }
+
+    /**
+     * Decodes while reading; the read buffer is pooled and returned when the stream is closed
+     * or exhausted.
+     */
+    public static InputStream wrap(InputStream base64) {
+        return new DecodingInputStream(base64);
+    }
+
+    /**
+     * The bits of an incomplete 4-character group. Complete groups are written at once, the tail
+     * by {@link #finish}.
+     */
+    private static final class Decoder {
+        private int bits;
+        private int count;
+        private int padding;
+
+        private int accept(int c, long position, byte[] target, int offset) {
+            int value = c < 128 ? VALUES[c] : INVALID;
+            if (value >= 0) {
+                if (padding > 0) {
+                    throw new Base64DecodingException("Invalid Base64: data after padding at position " + position);
+                }
+                bits = bits << 6 | value;
+                if (++count == 4) {
+                    target[offset++] = (byte) (bits >> 16);
+                    target[offset++] = (byte) (bits >> 8);
+                    target[offset++] = (byte) bits;
+                    bits = 0;
+                    count = 0;
+                }
+            } else if (value == PADDING) {
+                if (count < 2 || count + ++padding > 4) {
+                    throw new Base64DecodingException("Invalid Base64 padding at position " + position);
+                }
+            } else if (value != WHITESPACE) {
+                throw new Base64DecodingException("Invalid Base64 character at position " + position);
+            }
+            return offset;
+        }
+
+        private int finish(byte[] target, int offset) {
+            if (padding > 0 && count + padding != 4) {
+                throw new Base64DecodingException("Invalid Base64 padding");
+            }
+            switch (count) {
+                case 1 -> throw new Base64DecodingException("Invalid Base64 length");
+                case 2 -> target[offset++] = (byte) (bits >> 4);
+                case 3 -> {
+                    target[offset++] = (byte) (bits >> 10);
+                    target[offset++] = (byte) (bits >> 2);
+                }
+                default -> {
+                }
+            }
+            count = 0;
+            return offset;
+        }
+    }
+
+    private static final class JsonVariant extends Base64Variant {
+        private JsonVariant() {
+            super(Base64Variants.MIME_NO_LINEFEEDS.withPaddingAllowed(), "invoice-lenient", Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int decodeBase64Char(char c) {
+            return decodeBase64Char((int) c);
+        }
+
+        @Override
+        public int decodeBase64Char(int c) {
+            // Jackson skips whitespace itself and expects its own marker for padding.
+            int value = c >= 0 && c < 128 ? VALUES[c] : INVALID;
+            return value >= 0 ? value : value == PADDING ? BASE64_VALUE_PADDING : BASE64_VALUE_INVALID;
+        }
+    }
+
+    private static final class DecodingInputStream extends InputStream {
+        private final InputStream in;
+        private final Decoder decoder = new Decoder();
+        // Decoded bytes that did not fit the caller's array; a group yields at most three.
+        private final byte[] pending = new byte[3];
+        private final byte[] single = new byte[1];
+        private int pendingStart;
+        private int pendingEnd;
+        private byte[] buffer;
+        private int position;
+        private int limit;
+        private long consumed;
+        private boolean finished;
+
+        private DecodingInputStream(InputStream in) {
+            this.in = in;
+            this.buffer = STREAM_BUFFERS.borrow(STREAM_BUFFER_SIZE);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = 0;
+            while (n < len) {
+                if (pendingStart < pendingEnd) {
+                    b[off + n++] = pending[pendingStart++];
+                } else if (finished) {
+                    break;
+                } else if (position == limit) {
+                    // Hand out what is decoded rather than block for more input.
+                    if (n > 0 && in.available() <= 0) {
+                        break;
+                    }
+                    fill();
+                } else if (len - n >= 3) {
+                    n = decoder.accept(buffer[position++] & 0xff, consumed++, b, off + n) - off;
+                } else {
+                    pendingStart = 0;
+                    pendingEnd = decoder.accept(buffer[position++] & 0xff, consumed++, pending, 0);
+                }
+            }
+            return n == 0 && len > 0 && finished ? -1 : n;
+        }
+
+        private void fill() throws IOException {
+            if (buffer == null) {
+                throw new IOException("Stream closed");
+            }
+            int read = in.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                pendingStart = 0;
+                pendingEnd = decoder.finish(pending, 0);
+                finished = true;
+                releaseBuffer();
+            } else {
+                position = 0;
+                limit = read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            releaseBuffer();
+            in.close();
+        }
+
+        private void releaseBuffer() {
+            if (buffer != null) {
+                STREAM_BUFFERS.release(buffer);
+                buffer = null;
+                position = 0;
+                limit = 0;
+            }
+        }
+    }
+}
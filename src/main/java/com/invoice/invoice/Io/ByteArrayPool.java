@@ -0,0 +1,35 @@
+package com.invoice.invoice.Io;
+
+import com.invoice.invoice.Xml.BoundedPool;
+
+/**
+ * Reusable byte arrays for decoded payloads. Pooled arrays grow to the sizes actually requested;
+ * arrays above {@code maxRetainedSize} are left to the garbage collector, so one huge payload
+ * does not stay pinned in the pool.
+ */
+public final class ByteArrayPool {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final BoundedPool<byte[]> pool;
+    private final int maxRetainedSize;
+
+    public ByteArrayPool(int capacity, int maxRetainedSize) {
+        this.pool = new BoundedPool<>(capacity, () -> EMPTY);
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+    /**
+     * An array of at least {@code minLength} bytes; its content is undefined.
+     */
+    public byte[] borrow(int minLength) {
+        byte[] buffer = pool.borrow();
+        return buffer.length >= minLength ? buffer : new byte[minLength];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer.length > 0 && buffer.length <= maxRetainedSize) {
+            pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.invoice.invoice.Io;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Request body {@code Content-Encoding}s understood by the upload endpoints.
+ */
+public final class ContentEncodings {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentEncodings() {
+    }
+
+    public static boolean isSupported(String encoding) {
+        return switch (normalize(encoding)) {
+            case "", "identity", "gzip", "x-gzip", "zstd" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Wraps {@code in} so it yields the decoded body. Size limits must be applied to the result,
+     * not to the compressed input.
+     */
+    public static InputStream decode(InputStream in, String encoding) throws IOException {
+        return switch (normalize(encoding)) {
+            case "", "identity" -> in;
+            case "gzip", "x-gzip" -> new GZIPInputStream(in, BUFFER_SIZE);
+            case "zstd" -> new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+            default -> throw new IllegalArgumentException("Unsupported Content-Encoding: " + encoding);
+        };
+    }
+
+    private static String normalize(String encoding) {
+        return encoding == null ? "" : encoding.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.invoice.invoice.Io;
+
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with {@link PayloadTooLargeException} once more than {@code maxSize} bytes were read.
+ */
+public final class LimitedInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private final String subject;
+    private long count;
+
+    public LimitedInputStream(InputStream in, long maxSize) {
+        this(in, maxSize, "Invoice");
+    }
+
+    /**
+     * @param subject what is being read, for the error message
+     */
+    public LimitedInputStream(InputStream in, long maxSize, String subject) {
+        super(in);
+        this.maxSize = maxSize;
+        this.subject = subject;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    private void count(int n) {
+        count += n;
+        if (count > maxSize) {
+            throw new PayloadTooLargeException(subject + " exceeds the maximum size of " + maxSize + " bytes");
+        }
+    }
+}
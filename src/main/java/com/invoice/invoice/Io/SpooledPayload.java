@@ -0,0 +1,66 @@
+package com.invoice.invoice.Io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A decoded payload held in memory, or in a temporary file once it outgrew the spill threshold.
+ * Closing it deletes the file.
+ */
+public final class SpooledPayload implements AutoCloseable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] bytes;
+    private final Path file;
+    private final long size;
+    private final String contentHash;
+
+    SpooledPayload(byte[] bytes, Path file, long size, String contentHash) {
+        this.bytes = bytes;
+        this.file = file;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * A fresh stream over the payload. A spilled payload is read through a {@link FileChannel},
+     * so only the read buffer is on the heap.
+     */
+    public InputStream openStream() throws IOException {
+        if (file == null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        return new BufferedInputStream(Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)),
+                READ_BUFFER_SIZE);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Hex SHA-256 of the payload, computed while it was written.
+     */
+    public String contentHash() {
+        return contentHash;
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
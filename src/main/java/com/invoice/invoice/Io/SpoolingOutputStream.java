@@ -0,0 +1,103 @@
+package com.invoice.invoice.Io;
+
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Collects a payload in memory up to {@code spillThreshold} bytes and continues in a temporary
+ * file beyond that, hashing it on the way. Writing more than {@code maxSize} bytes fails with
+ * {@link PayloadTooLargeException} as soon as the limit is crossed.
+ */
+public final class SpoolingOutputStream extends OutputStream {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final long spillThreshold;
+    private final long maxSize;
+    private final Path directory;
+    private final MessageDigest digest;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream(8192);
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+    private boolean handedOver;
+
+    public SpoolingOutputStream(long spillThreshold, long maxSize, Path directory) {
+        this.spillThreshold = spillThreshold;
+        this.maxSize = maxSize;
+        this.directory = directory;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        size += len;
+        if (size > maxSize) {
+            throw new PayloadTooLargeException("Invoice exceeds the maximum size of " + maxSize + " bytes");
+        }
+        digest.update(b, off, len);
+        if (fileOut == null && size > spillThreshold) {
+            spill();
+        }
+        if (fileOut != null) {
+            fileOut.write(b, off, len);
+        } else {
+            memory.write(b, off, len);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Finishes writing and hands the content over; the returned payload owns the temporary file.
+     */
+    public SpooledPayload toPayload() throws IOException {
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        handedOver = true;
+        if (fileOut == null) {
+            return new SpooledPayload(memory.toByteArray(), null, size, contentHash);
+        }
+        fileOut.close();
+        return new SpooledPayload(null, file, size, contentHash);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOut != null && !handedOver) {
+            try {
+                fileOut.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        Files.createDirectories(directory);
+        file = Files.createTempFile(directory, "invoice-", ".xml");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file), FILE_BUFFER_SIZE);
+        memory.writeTo(fileOut);
+        memory = null;
+    }
+}
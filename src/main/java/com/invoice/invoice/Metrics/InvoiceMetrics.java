@@ -0,0 +1,183 @@
+package com.invoice.invoice.Metrics;
+
+import com.invoice.invoice.Xml.XmlConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the invoice pipeline. All meters are registered up front and kept in fields, so
+ * recording is a plain call on an existing meter: no tag lookups or {@code Timer.Sample} objects
+ * on the hot path. Callers take {@link System#nanoTime()} before a stage and pass it to
+ * {@link #record(Stage, long)} afterwards.
+ */
+@Component
+public class InvoiceMetrics {
+
+    public enum Stage {
+        DECODE("decode"),
+        PARSE("parse"),
+        VALIDATE("validate"),
+        EXTRACT("extract"),
+        VALIDATE_EXTRACT("validate_extract"),
+        PERSIST("persist"),
+        PREVALIDATE("prevalidate"),
+        PERSIST_BATCH("persist_batch"),
+        OUTBOX_RELAY("outbox_relay"),
+        TOTAL("total");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Timer[] stageTimers = new Timer[Stage.values().length];
+    private final DistributionSummary payloadSize;
+    private final Counter saved;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final Counter validationIgnored;
+    private final Counter outboxPublished;
+    private final AtomicLong warmupMillis = new AtomicLong();
+    private final AtomicLong firstRequestMillis = new AtomicLong();
+
+    public InvoiceMetrics(MeterRegistry registry, XmlConcurrencyLimiter xmlLimiter) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("invoice.stage.duration")
+                    .description("Time spent in one stage of invoice processing")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+        }
+        payloadSize = DistributionSummary.builder("invoice.payload.size")
+                .description("Size of the decoded invoice XML")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(256.0)
+                .maximumExpectedValue(64.0 * 1024 * 1024)
+                .register(registry);
+        saved = processed("saved");
+        duplicates = processed("duplicate");
+        failed = processed("failed");
+        validationIgnored = Counter.builder("invoice.validation.ignored")
+                .description("Schema violations let through in lenient validation mode")
+                .register(registry);
+        outboxPublished = Counter.builder("invoice.outbox.published")
+                .description("Change events published by the outbox relay")
+                .register(registry);
+        Gauge.builder("invoice.in.flight", inFlight, AtomicInteger::get)
+                .description("Invoices currently being processed")
+                .register(registry);
+        TimeGauge.builder("invoice.startup.warmup", warmupMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time spent warming up the XML paths before readiness")
+                .register(registry);
+        TimeGauge.builder("invoice.startup.first.request", firstRequestMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the first API request was answered")
+                .register(registry);
+        Gauge.builder("invoice.xml.permits.available", xmlLimiter, XmlConcurrencyLimiter::availablePermits)
+                .description("Free slots for concurrent XML parsing and validation")
+                .register(registry);
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayloadSize(long bytes) {
+        payloadSize.record(bytes);
+    }
+
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    public void finished(long startNanos) {
+        inFlight.decrementAndGet();
+        record(Stage.TOTAL, startNanos);
+    }
+
+    public void saved() {
+        saved.increment();
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    public void failed() {
+        failed.increment();
+    }
+
+    /**
+     * Counts an invoice turned down as invalid, by reason; it is also counted as failed.
+     */
+    public void rejected(String reason) {
+        failed.increment();
+        rejections.computeIfAbsent(reason, r -> Counter.builder("invoice.rejected")
+                .description("Invoices rejected as invalid, by reason")
+                .tag("reason", r)
+                .register(registry)).increment();
+    }
+
+    public void validationIgnored() {
+        validationIgnored.increment();
+    }
+
+    public void outboxPublished(int events) {
+        outboxPublished.increment(events);
+    }
+
+    public void warmedUp(Duration duration) {
+        warmupMillis.set(duration.toMillis());
+    }
+
+    /**
+     * Records the time to the first answered request; only the first call has an effect.
+     */
+    public boolean firstRequest(Duration sinceJvmStart) {
+        return firstRequestMillis.compareAndSet(0, Math.max(1, sinceJvmStart.toMillis()));
+    }
+
+    public void batchProcessed(int savedItems, int duplicateItems, int failedItems) {
+        saved.increment(savedItems);
+        duplicates.increment(duplicateItems);
+        failed.increment(failedItems);
+    }
+
+    /**
+     * Counts an error response by the {@code error} code of the body; one counter per code.
+     */
+    public void recordError(String code) {
+        errors.computeIfAbsent(code, c -> Counter.builder("invoice.errors")
+                .description("Error responses by error code")
+                .tag("error", c)
+                .register(registry)).increment();
+    }
+
+    private Counter processed(String result) {
+        return Counter.builder("invoice.processed")
+                .description("Processed invoices by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,20 @@
+package com.invoice.invoice.Outbox;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the change events published by the {@link OutboxRelay}, selected with
+ * {@code invoice.outbox.sink}. Delivery is at least once: if the relay transaction fails after a
+ * batch was published, the batch is published again with new positions, so consumers should
+ * deduplicate by invoice id and type.
+ */
+public interface ChangeSink {
+
+    /**
+     * Publishes one batch in feed order. Throwing leaves the events pending for the next run.
+     */
+    void publish(List<InvoiceDto.InvoiceChange> changes) throws IOException;
+}
@@ -0,0 +1,58 @@
+package com.invoice.invoice.Outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as NDJSON to {@code invoice.outbox.file}, one line per event. Each batch is
+ * forced to disk before the relay marks it published.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.outbox.sink", havingValue = "file")
+@Slf4j
+public class FileChangeSink implements ChangeSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileChangeSink(InvoiceProperties properties, ObjectMapper objectMapper) throws IOException {
+        this.file = Paths.get(properties.getOutbox().getFile());
+        this.objectMapper = objectMapper;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        log.info("Publishing invoice changes to {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void publish(List<InvoiceDto.InvoiceChange> changes) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(changes.size() * 256);
+        for (InvoiceDto.InvoiceChange change : changes) {
+            lines.write(objectMapper.writeValueAsBytes(change));
+            lines.write('\n');
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
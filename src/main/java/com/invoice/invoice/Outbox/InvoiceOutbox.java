@@ -0,0 +1,78 @@
+package com.invoice.invoice.Outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Entity.InvoiceOutboxEvent;
+import com.invoice.invoice.Repository.InvoiceOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes change events into the outbox table. Events are inserted by the transaction that saves
+ * the invoices, so an event exists exactly when its invoice does; the {@link OutboxRelay}
+ * publishes them afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvoiceOutbox {
+
+    private final InvoiceOutboxRepository repo;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Records a {@code CREATED} event for each invoice. The invoices must already have their ids.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invoicesSaved(List<Invoice> invoices) {
+        List<InvoiceOutboxEvent> events = new ArrayList<>(invoices.size());
+        for (Invoice invoice : invoices) {
+            InvoiceOutboxEvent event = new InvoiceOutboxEvent();
+            event.setInvoiceId(invoice.getId());
+            event.setEventType(InvoiceDto.ChangeType.CREATED.name());
+            event.setPayload(write(InvoiceDto.InvoiceChange.builder()
+                    .type(InvoiceDto.ChangeType.CREATED)
+                    .invoiceId(invoice.getId())
+                    .nip(invoice.getNip())
+                    .p1(invoice.getP1())
+                    .p2(invoice.getP2())
+                    .buyerNip(invoice.getBuyerNip())
+                    .currency(invoice.getCurrency())
+                    .grossTotal(invoice.getGrossTotal())
+                    .build()));
+            events.add(event);
+        }
+        repo.saveAll(events);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void invoiceSaved(Invoice invoice) {
+        invoicesSaved(List.of(invoice));
+    }
+
+    public InvoiceDto.InvoiceChange toChange(InvoiceOutboxEvent event) {
+        try {
+            InvoiceDto.InvoiceChange change = objectMapper.readValue(event.getPayload(), InvoiceDto.InvoiceChange.class);
+            change.setPosition(event.getPosition());
+            change.setOccurredAt(event.getCreatedAt());
+            return change;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Unreadable outbox event " + event.getId(), e);
+        }
+    }
+
+    private String write(InvoiceDto.InvoiceChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.invoice.invoice.Outbox;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process broker: hands every event to the subscribers registered in this instance. Without
+ * subscribers events are only available through the change feed.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.outbox.sink", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class MemoryChangeSink implements ChangeSink {
+
+    private final List<Consumer<InvoiceDto.InvoiceChange>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<InvoiceDto.InvoiceChange> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void publish(List<InvoiceDto.InvoiceChange> changes) {
+        for (Consumer<InvoiceDto.InvoiceChange> subscriber : subscribers) {
+            for (InvoiceDto.InvoiceChange change : changes) {
+                try {
+                    subscriber.accept(change);
+                } catch (RuntimeException e) {
+                    // One failing subscriber must not hold back the others or the relay.
+                    log.warn("Change subscriber failed on event {}: {}", change.getPosition(), e.getMessage());
+                }
+            }
+        }
+    }
+}
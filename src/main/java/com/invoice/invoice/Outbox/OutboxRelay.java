@@ -0,0 +1,98 @@
+package com.invoice.invoice.Outbox;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.InvoiceOutboxEvent;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Repository.InvoiceOutboxRepository;
+import com.invoice.invoice.Service.InvoiceChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes pending outbox events to the {@link ChangeSink} in batches. Each batch is claimed,
+ * published and marked in one transaction under an advisory lock, so with several instances only
+ * one relays at a time and feed positions become visible in order. A failed batch stays pending
+ * and is retried on the next run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    // Key of the PostgreSQL advisory lock; only has to differ from other locks on the database.
+    private static final long RELAY_LOCK_KEY = 7_301_843_212_914_010_121L;
+
+    private final InvoiceOutboxRepository repo;
+    private final InvoiceOutbox outbox;
+    private final ChangeSink sink;
+    private final InvoiceChangeService changes;
+    private final TransactionTemplate transactionTemplate;
+    private final InvoiceMetrics metrics;
+    private final InvoiceProperties properties;
+
+    @Scheduled(fixedDelayString = "${invoice.outbox.poll-interval:PT1S}")
+    void relay() {
+        int batchSize = properties.getOutbox().getBatchSize();
+        int published;
+        do {
+            published = publishBatch(batchSize);
+        } while (published == batchSize);
+        // Also picks up events relayed by other instances for requests waiting here.
+        changes.poll();
+    }
+
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+    void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getOutbox().getRetention());
+        Integer deleted = transactionTemplate.execute(status -> repo.deletePublishedBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Removed {} published outbox events older than {}", deleted, before);
+        }
+    }
+
+    private int publishBatch(int batchSize) {
+        long start = System.nanoTime();
+        try {
+            Integer published = transactionTemplate.execute(status -> {
+                if (!repo.tryRelayLock(RELAY_LOCK_KEY)) {
+                    return 0;
+                }
+                List<InvoiceOutboxEvent> events = repo.claimPending(batchSize);
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                List<InvoiceDto.InvoiceChange> batch = events.stream()
+                        .map(outbox::toChange)
+                        .sorted(Comparator.comparing(InvoiceDto.InvoiceChange::getPosition))
+                        .toList();
+                try {
+                    sink.publish(batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return batch.size();
+            });
+            if (published != null && published > 0) {
+                metrics.record(InvoiceMetrics.Stage.OUTBOX_RELAY, start);
+                metrics.outboxPublished(published);
+                return published;
+            }
+            return 0;
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish outbox events, retrying in {}: {}",
+                    properties.getOutbox().getPollInterval(), e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.invoice.invoice.Outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as an NDJSON body to {@code invoice.outbox.webhook-url}. Any status other than
+ * 2xx leaves the batch pending, so the receiver sees it again on the next relay run.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.outbox.sink", havingValue = "webhook")
+public class WebhookChangeSink implements ChangeSink {
+
+    private final URI url;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+
+    public WebhookChangeSink(InvoiceProperties properties, ObjectMapper objectMapper) {
+        InvoiceProperties.Outbox config = properties.getOutbox();
+        if (!StringUtils.hasText(config.getWebhookUrl())) {
+            throw new IllegalStateException("invoice.outbox.webhook-url is required for the webhook sink");
+        }
+        this.url = URI.create(config.getWebhookUrl());
+        this.timeout = config.getWebhookTimeout();
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void publish(List<InvoiceDto.InvoiceChange> changes) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(changes.size() * 256);
+        for (InvoiceDto.InvoiceChange change : changes) {
+            body.write(objectMapper.writeValueAsBytes(change));
+            body.write('\n');
+        }
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while publishing to " + url);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook " + url + " answered with status " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.invoice.invoice.Repository;
+
+import com.invoice.invoice.Entity.InvoiceOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InvoiceOutboxRepository extends JpaRepository<InvoiceOutboxEvent, Long> {
+
+    /**
+     * Transaction-scoped advisory lock that serializes the relays of all instances, so feed
+     * positions become visible in the order they are handed out.
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryRelayLock(@Param("key") long key);
+
+    /**
+     * Assigns feed positions to the oldest pending events and returns them. Must run in the
+     * transaction that holds the relay lock.
+     */
+    @Query(value = """
+            with pending as (
+                select id from invoice_outbox where feed_position is null order by id limit :limit)
+            update invoice_outbox o
+               set feed_position = nextval('invoice_outbox_position_seq'), published_at = localtimestamp
+              from pending
+             where o.id = pending.id
+            returning o.*""", nativeQuery = true)
+    List<InvoiceOutboxEvent> claimPending(@Param("limit") int limit);
+
+    @Query(value = "select * from invoice_outbox where feed_position > :since order by feed_position limit :limit",
+            nativeQuery = true)
+    List<InvoiceOutboxEvent> findPublishedAfter(@Param("since") long since, @Param("limit") int limit);
+
+    @Query("select max(e.position) from InvoiceOutboxEvent e")
+    Optional<Long> findLastPosition();
+
+    @Modifying
+    @Query("delete from InvoiceOutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -3,8 +3,26 @@ package com.invoice.invoice.Repository;
 
 import com.invoice.invoice.Entity.Invoice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceSearchRepository {
+
+    // Key lookups go to invoice_keys: a single index there instead of one probe per partition.
+
+    @Query(value = "select count(*) from invoice_keys where nip = :nip", nativeQuery = true)
+    long countByNip(@Param("nip") String nip);
+
+    @Query(value = "select invoice_id from invoice_keys where content_hash = :contentHash", nativeQuery = true)
+    Optional<Long> findIdByContentHash(@Param("contentHash") String contentHash);
+
+    @Query(value = "select invoice_id from invoice_keys where nip = :nip and p2 = :p2", nativeQuery = true)
+    Optional<Long> findIdByNipAndP2(@Param("nip") String nip, @Param("p2") String p2);
+
+    @Query(value = "select invoice_id from invoice_keys where idempotency_key = :idempotencyKey", nativeQuery = true)
+    Optional<Long> findIdByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
 }
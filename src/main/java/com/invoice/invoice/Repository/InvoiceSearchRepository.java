@@ -0,0 +1,28 @@
+package com.invoice.invoice.Repository;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface InvoiceSearchRepository {
+
+    /**
+     * Up to {@code limit} invoices matching the filter, ordered by {@code (createdAt, id)} and
+     * starting strictly after the given position ({@code null} for the first page).
+     */
+    List<InvoiceDto.InvoiceSummary> search(InvoiceDto.InvoiceFilter filter,
+                                           LocalDateTime afterCreatedAt, Long afterId, int limit);
+
+    /**
+     * All invoices matching the filter in {@code (createdAt, id)} order, fetched from the database
+     * {@code fetchSize} rows at a time. Must be consumed and closed inside a transaction.
+     */
+    Stream<InvoiceDto.InvoiceSummary> stream(InvoiceDto.InvoiceFilter filter, int fetchSize);
+
+    /**
+     * The most recently created invoices of one seller, newest first.
+     */
+    List<InvoiceDto.InvoiceSummary> latest(String nip, int limit);
+}
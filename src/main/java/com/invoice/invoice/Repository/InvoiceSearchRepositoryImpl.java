@@ -0,0 +1,103 @@
+package com.invoice.invoice.Repository;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Keyset (seek) pagination: each page continues after the {@code (created_at, id)} of the previous
+ * one, so the database walks the index from that point instead of counting skipped rows as with
+ * OFFSET. Only the listed columns are selected; no entities are loaded into the persistence context.
+ * The same query also backs the export, read through a JDBC cursor with a fixed fetch size.
+ */
+public class InvoiceSearchRepositoryImpl implements InvoiceSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<InvoiceDto.InvoiceSummary> search(InvoiceDto.InvoiceFilter filter,
+                                                  LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        TypedQuery<Object[]> query = createQuery(filter, afterCreatedAt, afterId);
+        query.setMaxResults(limit);
+        return query.getResultList().stream()
+                .map(InvoiceSearchRepositoryImpl::toSummary)
+                .toList();
+    }
+
+    @Override
+    public Stream<InvoiceDto.InvoiceSummary> stream(InvoiceDto.InvoiceFilter filter, int fetchSize) {
+        TypedQuery<Object[]> query = createQuery(filter, null, null);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream().map(InvoiceSearchRepositoryImpl::toSummary);
+    }
+
+    @Override
+    public List<InvoiceDto.InvoiceSummary> latest(String nip, int limit) {
+        return entityManager.createQuery("select i.id, i.nip, i.p1, i.p2, i.createdAt from Invoice i"
+                        + " where i.nip = :nip order by i.createdAt desc, i.id desc", Object[].class)
+                .setParameter("nip", nip)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(InvoiceSearchRepositoryImpl::toSummary)
+                .toList();
+    }
+
+    private TypedQuery<Object[]> createQuery(InvoiceDto.InvoiceFilter filter,
+                                             LocalDateTime afterCreatedAt, Long afterId) {
+        StringBuilder hql = new StringBuilder(
+                "select i.id, i.nip, i.p1, i.p2, i.createdAt from Invoice i where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (filter.getNip() != null) {
+            hql.append(" and i.nip = :nip");
+            parameters.put("nip", filter.getNip());
+        }
+        if (filter.getIssuedFrom() != null) {
+            hql.append(" and i.p1 >= :issuedFrom");
+            parameters.put("issuedFrom", filter.getIssuedFrom());
+        }
+        if (filter.getIssuedTo() != null) {
+            hql.append(" and i.p1 <= :issuedTo");
+            parameters.put("issuedTo", filter.getIssuedTo());
+        }
+        if (filter.getCreatedFrom() != null) {
+            hql.append(" and i.createdAt >= :createdFrom");
+            parameters.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            hql.append(" and i.createdAt < :createdTo");
+            parameters.put("createdTo", filter.getCreatedTo());
+        }
+        if (afterCreatedAt != null && afterId != null) {
+            hql.append(" and (i.createdAt, i.id) > (:afterCreatedAt, :afterId)");
+            parameters.put("afterCreatedAt", afterCreatedAt);
+            parameters.put("afterId", afterId);
+        }
+        hql.append(" order by i.createdAt, i.id");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(hql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    private static InvoiceDto.InvoiceSummary toSummary(Object[] row) {
+        return InvoiceDto.InvoiceSummary.builder()
+                .id((Long) row[0])
+                .nip((String) row[1])
+                .p1((LocalDate) row[2])
+                .p2((String) row[3])
+                .createdAt((LocalDateTime) row[4])
+                .build();
+    }
+}
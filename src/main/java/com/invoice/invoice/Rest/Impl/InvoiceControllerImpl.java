@@ -2,12 +2,38 @@ package com.invoice.invoice.Rest.Impl;
 
 import com.invoice.invoice.Dto.InvoiceDto;
 import com.invoice.invoice.Rest.InvoiceController;
+import com.invoice.invoice.Exception.BadRequestException;
+import com.invoice.invoice.Exception.NotFoundException;
+import com.invoice.invoice.Service.ArchiveImportService;
+import com.invoice.invoice.Service.InvoiceBatchService;
+import com.invoice.invoice.Service.InvoiceChangeService;
+import com.invoice.invoice.Service.InvoiceExportService;
+import com.invoice.invoice.Service.InvoiceIngestQueue;
+import com.invoice.invoice.Service.InvoiceQueryService;
 import com.invoice.invoice.Service.InvoiceService;
+import com.invoice.invoice.Service.SellerSummaryService;
+import com.invoice.invoice.Xml.InvoiceFields;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api")
@@ -15,13 +41,187 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class InvoiceControllerImpl implements InvoiceController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final InvoiceService invoiceService;
+    private final InvoiceBatchService invoiceBatchService;
+    private final InvoiceIngestQueue invoiceIngestQueue;
+    private final InvoiceQueryService invoiceQueryService;
+    private final InvoiceExportService invoiceExportService;
+    private final SellerSummaryService sellerSummaryService;
+    private final ArchiveImportService archiveImportService;
+    private final InvoiceChangeService invoiceChangeService;
 
     @Override
     @PostMapping(value = "/invoices", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<InvoiceDto.InvoiceResponse> processInvoice(@Valid @RequestBody InvoiceDto.InvoiceRequest request) {
+    public ResponseEntity<InvoiceDto.InvoiceResponse> processInvoice(
+            InputStream body,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         log.info("Received invoice processing request");
-        InvoiceDto.InvoiceResponse response = invoiceService.processInvoice(request.getBase64Xml());
+        InvoiceDto.InvoiceResponse response = invoiceService.processInvoiceJson(body, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    @PostMapping(value = "/invoices", consumes = "text/plain", produces = "application/json")
+    public ResponseEntity<InvoiceDto.InvoiceResponse> processInvoiceStream(
+            InputStream body,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        log.info("Received streaming invoice processing request");
+        InvoiceDto.InvoiceResponse response = invoiceService.processInvoiceStream(body, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    @PostMapping(value = "/invoices", consumes = {"application/xml", "text/xml", "application/octet-stream"},
+            produces = "application/json")
+    public ResponseEntity<InvoiceDto.InvoiceResponse> processXmlStream(
+            InputStream body,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        log.info("Received raw XML invoice processing request");
+        InvoiceDto.InvoiceResponse response = invoiceService.processXmlStream(body, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    @PostMapping(value = "/invoices/batch", consumes = {"application/json", "application/x-ndjson"},
+            produces = "application/json")
+    public ResponseEntity<InvoiceDto.BatchResponse> processBatch(InputStream body) {
+        log.info("Received invoice batch request");
+        InvoiceDto.BatchResponse response = invoiceBatchService.processBatch(body);
         return ResponseEntity.ok(response);
     }
+
+    @Override
+    @PostMapping(value = "/invoices/async", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<InvoiceDto.TicketResponse> submitInvoice(@Valid @RequestBody InvoiceDto.InvoiceRequest request) {
+        InvoiceDto.TicketResponse response = invoiceIngestQueue.submit(request.getBase64Xml());
+        log.info("Accepted invoice for asynchronous processing, ticket {}", response.getTicket());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/invoices/" + response.getTicket()))
+                .body(response);
+    }
+
+    @Override
+    @GetMapping(value = "/invoices/{ticket}", produces = "application/json")
+    public ResponseEntity<InvoiceDto.TicketResponse> getTicket(@PathVariable UUID ticket) {
+        return invoiceIngestQueue.status(ticket)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new NotFoundException("Ticket not found: " + ticket));
+    }
+
+    @Override
+    @GetMapping(value = "/invoices", produces = "application/json")
+    public ResponseEntity<InvoiceDto.InvoicePage> searchInvoices(
+            @RequestParam(required = false) String nip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate issuedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate issuedTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        InvoiceDto.InvoiceFilter filter = filter(nip, issuedFrom, issuedTo, createdFrom, createdTo);
+        return ResponseEntity.ok(invoiceQueryService.search(filter, cursor, limit));
+    }
+
+    @Override
+    @GetMapping(value = "/invoices/changes", produces = "application/json")
+    public DeferredResult<InvoiceDto.ChangePage> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Duration wait) {
+        return invoiceChangeService.awaitChanges(since, limit, wait != null ? wait : Duration.ZERO);
+    }
+
+    @Override
+    @GetMapping("/invoices/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(required = false) String nip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate issuedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate issuedTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        InvoiceDto.ExportFormat exportFormat;
+        try {
+            exportFormat = InvoiceDto.ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+        InvoiceDto.InvoiceFilter filter = filter(nip, issuedFrom, issuedTo, createdFrom, createdTo);
+        log.info("Received invoice export request, format {}", exportFormat);
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024, true);
+                invoiceExportService.export(filter, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                invoiceExportService.export(filter, exportFormat, out);
+            }
+        };
+
+        // gzip is a transfer encoding here; clients that decompress it save the plain file.
+        String filename = "invoices." + exportFormat.getExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @Override
+    @GetMapping(value = "/sellers/{nip}/summary", produces = "application/json")
+    public ResponseEntity<InvoiceDto.SellerSummary> getSellerSummary(@PathVariable String nip) {
+        return ResponseEntity.ok(sellerSummaryService.getSummary(normalizeNip(nip)));
+    }
+
+    @Override
+    @PostMapping(value = "/archives", consumes = {"application/zip", "application/x-tar", "application/gzip",
+            "application/x-gzip", "application/x-gtar", "application/octet-stream"}, produces = "application/json")
+    public ResponseEntity<InvoiceDto.ArchiveReport> importArchive(
+            InputStream body,
+            @RequestParam(defaultValue = "archive") String name,
+            @RequestParam(required = false) UUID job) {
+        UUID jobId = job != null ? job : UUID.randomUUID();
+        log.info("Received archive import request {} for {}", jobId, name);
+        return ResponseEntity.ok(archiveImportService.importArchive(body, name, jobId));
+    }
+
+    @Override
+    @GetMapping(value = "/archives", produces = "application/json")
+    public ResponseEntity<List<InvoiceDto.ArchiveReport>> getRunningArchiveImports() {
+        return ResponseEntity.ok(archiveImportService.running());
+    }
+
+    @Override
+    @GetMapping(value = "/archives/{job}", produces = "application/json")
+    public ResponseEntity<InvoiceDto.ArchiveReport> getArchiveImport(@PathVariable UUID job) {
+        return archiveImportService.report(job)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new NotFoundException("Archive import not found: " + job));
+    }
+
+    private static InvoiceDto.InvoiceFilter filter(String nip, LocalDate issuedFrom, LocalDate issuedTo,
+                                                   LocalDateTime createdFrom, LocalDateTime createdTo) {
+        return InvoiceDto.InvoiceFilter.builder()
+                .nip(nip != null ? normalizeNip(nip) : null)
+                .issuedFrom(issuedFrom)
+                .issuedTo(issuedTo)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+    }
+
+    private static String normalizeNip(String nip) {
+        try {
+            return InvoiceFields.normalizeNip(nip);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
 }
@@ -4,9 +4,90 @@ import com.invoice.invoice.Dto.InvoiceDto;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 public interface InvoiceController {
 
-    ResponseEntity<InvoiceDto.InvoiceResponse> processInvoice(@Valid @RequestBody InvoiceDto.InvoiceRequest request);
+    /**
+     * Accepts an {@link InvoiceDto.InvoiceRequest} JSON body. Retrying with the same
+     * {@code Idempotency-Key}, or resending an identical invoice, returns the id of the invoice
+     * saved the first time instead of storing it again. The body is decoded while it is read,
+     * large invoices are spooled to disk, and oversized ones are rejected with 413.
+     */
+    ResponseEntity<InvoiceDto.InvoiceResponse> processInvoice(InputStream body, String idempotencyKey);
+
+    /**
+     * Accepts the Base64 invoice as a raw {@code text/plain} body and decodes, validates and
+     * extracts it while it is read, so memory use does not grow with the invoice size.
+     */
+    ResponseEntity<InvoiceDto.InvoiceResponse> processInvoiceStream(InputStream body, String idempotencyKey);
+
+    /**
+     * Accepts the invoice as a raw {@code application/xml} or {@code application/octet-stream}
+     * body and parses it as it arrives. Bodies may be sent with {@code Content-Encoding: gzip} or
+     * {@code zstd}; the size limit applies to the decompressed XML.
+     */
+    ResponseEntity<InvoiceDto.InvoiceResponse> processXmlStream(InputStream body, String idempotencyKey);
+
+    /**
+     * Accepts a JSON array or an NDJSON stream of invoice requests and reports the outcome of every
+     * item; one bad invoice does not fail the rest of the batch.
+     */
+    ResponseEntity<InvoiceDto.BatchResponse> processBatch(InputStream body);
+
+    /**
+     * Journals the invoice and returns {@code 202 Accepted} with a ticket straight away; the
+     * invoice is validated and saved in the background. Poll the {@code Location} for the outcome.
+     */
+    ResponseEntity<InvoiceDto.TicketResponse> submitInvoice(@Valid @RequestBody InvoiceDto.InvoiceRequest request);
+
+    ResponseEntity<InvoiceDto.TicketResponse> getTicket(UUID ticket);
+
+    /**
+     * Lists invoices in creation order using keyset pagination: follow {@code nextCursor} until it
+     * is absent. {@code createdTo} is exclusive, the issue-date bounds are inclusive.
+     */
+    ResponseEntity<InvoiceDto.InvoicePage> searchInvoices(String nip, LocalDate issuedFrom, LocalDate issuedTo,
+                                                          LocalDateTime createdFrom, LocalDateTime createdTo,
+                                                          String cursor, int limit);
+
+    /**
+     * Changes of saved invoices after feed position {@code since}, oldest first. Continue from
+     * {@code nextSince}. With a {@code wait} duration the request is held until the first new
+     * change is published or the wait is over, so consumers can follow the feed without polling.
+     */
+    DeferredResult<InvoiceDto.ChangePage> getChanges(long since, int limit, Duration wait);
+
+    /**
+     * Streams every invoice matching the filter as CSV or NDJSON, optionally gzip-compressed.
+     * Rows are written while they are read, so exports of any size use constant memory.
+     */
+    ResponseEntity<StreamingResponseBody> exportInvoices(String nip, LocalDate issuedFrom, LocalDate issuedTo,
+                                                         LocalDateTime createdFrom, LocalDateTime createdTo,
+                                                         String format, boolean gzip);
+
+    /**
+     * Invoice count and latest invoices of one seller. Served from a cache that is updated on
+     * save, so repeated lookups do not hit the database.
+     */
+    ResponseEntity<InvoiceDto.SellerSummary> getSellerSummary(String nip);
+
+    /**
+     * Imports every XML file of a ZIP, TAR or TAR.GZ archive and answers with a per-entry report
+     * once the archive is done. Pass a {@code job} id to follow the progress of a long import
+     * through {@link #getArchiveImport(UUID)}.
+     */
+    ResponseEntity<InvoiceDto.ArchiveReport> importArchive(InputStream body, String name, UUID job);
+
+    ResponseEntity<List<InvoiceDto.ArchiveReport>> getRunningArchiveImports();
 
+    ResponseEntity<InvoiceDto.ArchiveReport> getArchiveImport(UUID job);
 }
@@ -0,0 +1,30 @@
+package com.invoice.invoice.Rest;
+
+import com.invoice.invoice.Dto.SchemaDto;
+import com.invoice.invoice.Service.SchemaRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "schemas")
+@RequiredArgsConstructor
+public class SchemaRegistryEndpoint {
+
+    private final SchemaRegistry schemaRegistry;
+
+    @ReadOperation
+    public List<SchemaDto.SchemaStatistics> statistics() {
+        return schemaRegistry.getStatistics();
+    }
+
+    @WriteOperation
+    public List<SchemaDto.SchemaStatistics> reload() {
+        schemaRegistry.reload();
+        return schemaRegistry.getStatistics();
+    }
+}
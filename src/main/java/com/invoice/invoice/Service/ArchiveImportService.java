@@ -0,0 +1,29 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ArchiveImportService {
+
+    /**
+     * Reads a ZIP, TAR or gzip-compressed TAR archive entry by entry and saves every XML entry as
+     * an invoice. Entries are parsed in parallel and written chunk by chunk; nothing is extracted
+     * to disk except entries above the spill threshold. Returns once the whole archive is done,
+     * while its progress can be polled under {@code job}.
+     */
+    InvoiceDto.ArchiveReport importArchive(InputStream archive, String name, UUID job);
+
+    /**
+     * Progress of the imports currently running, without per-entry results.
+     */
+    List<InvoiceDto.ArchiveReport> running();
+
+    /**
+     * Progress of a running import, or the full report of a recently finished one.
+     */
+    Optional<InvoiceDto.ArchiveReport> report(UUID job);
+}
@@ -0,0 +1,352 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.invoice.invoice.Config.ExecutorConfig;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Exception.BadRequestException;
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import com.invoice.invoice.Io.SpooledPayload;
+import com.invoice.invoice.Io.SpoolingOutputStream;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Service.ArchiveImportService;
+import com.invoice.invoice.Service.InvoiceService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Archive entries can only be read one after another, so the request thread reads them and hands
+ * each one to the parsing executor as soon as it is spooled. Every {@code invoice.batch.chunk-size}
+ * entries it waits for the parsers and writes the chunk in one transaction, which keeps the
+ * number of entries held in memory bounded.
+ */
+@Service
+@Slf4j
+public class ArchiveImportServiceImpl implements ArchiveImportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InvoiceService invoiceService;
+    private final InvoiceBatchWriter batchWriter;
+    private final AsyncTaskExecutor parsingExecutor;
+    private final InvoiceProperties properties;
+    private final InvoiceMetrics metrics;
+    private final Map<UUID, Job> running = new ConcurrentHashMap<>();
+    // Finished reports without their entry results, which are kept apart under a total budget.
+    private final Cache<UUID, InvoiceDto.ArchiveReport> finished;
+    private final Cache<UUID, List<InvoiceDto.ArchiveEntryResult>> finishedResults;
+
+    public ArchiveImportServiceImpl(InvoiceService invoiceService,
+                                    InvoiceBatchWriter batchWriter,
+                                    @Qualifier(ExecutorConfig.INVOICE_PARSING_EXECUTOR) AsyncTaskExecutor parsingExecutor,
+                                    InvoiceProperties properties,
+                                    InvoiceMetrics metrics) {
+        this.invoiceService = invoiceService;
+        this.batchWriter = batchWriter;
+        this.parsingExecutor = parsingExecutor;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.finished = Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(properties.getArchive().getReportRetention())
+                .build();
+        this.finishedResults = Caffeine.newBuilder()
+                .maximumWeight(properties.getArchive().getRetainedResults())
+                .<UUID, List<InvoiceDto.ArchiveEntryResult>>weigher((job, results) -> results.size())
+                .expireAfterWrite(properties.getArchive().getReportRetention())
+                .build();
+    }
+
+    @Override
+    public InvoiceDto.ArchiveReport importArchive(InputStream archive, String name, UUID jobId) {
+        if (running.containsKey(jobId) || finished.getIfPresent(jobId) != null) {
+            throw new BadRequestException("Archive import " + jobId + " already exists");
+        }
+        Job job = new Job(jobId, name);
+        List<InvoiceDto.ArchiveEntryResult> results = new ArrayList<>();
+        try (ArchiveInputStream<?> entries = open(archive)) {
+            if (running.putIfAbsent(jobId, job) != null) {
+                throw new BadRequestException("Archive import " + jobId + " already exists");
+            }
+            log.info("Importing archive {} as job {}", name, jobId);
+            readEntries(entries, job, results);
+        } catch (IOException e) {
+            throw new BadRequestException("Failed to read archive " + name + ": " + e.getMessage(), e);
+        } finally {
+            running.remove(jobId, job);
+        }
+
+        results.sort(Comparator.comparingInt(InvoiceDto.ArchiveEntryResult::getIndex));
+        InvoiceDto.ArchiveReport report = job.snapshot().toBuilder()
+                .status(job.message == null ? InvoiceDto.ArchiveStatus.COMPLETED : InvoiceDto.ArchiveStatus.FAILED)
+                .completedAt(LocalDateTime.now())
+                .results(results)
+                .build();
+        finished.put(jobId, report.toBuilder().results(null).build());
+        finishedResults.put(jobId, results);
+        metrics.batchProcessed(report.getSaved(), report.getDuplicates(), report.getFailed());
+        log.info("Imported archive {}: {} entries, {} saved, {} duplicates, {} skipped, {} failed",
+                name, report.getEntries(), report.getSaved(), report.getDuplicates(), report.getSkipped(), report.getFailed());
+        return report;
+    }
+
+    @Override
+    public List<InvoiceDto.ArchiveReport> running() {
+        return running.values().stream()
+                .map(Job::snapshot)
+                .sorted(Comparator.comparing(InvoiceDto.ArchiveReport::getStartedAt))
+                .toList();
+    }
+
+    @Override
+    public Optional<InvoiceDto.ArchiveReport> report(UUID jobId) {
+        Job job = running.get(jobId);
+        if (job != null) {
+            return Optional.of(job.snapshot());
+        }
+        return Optional.ofNullable(finished.getIfPresent(jobId))
+                .map(report -> report.toBuilder().results(finishedResults.getIfPresent(jobId)).build());
+    }
+
+    /**
+     * Reads entries until the end of the archive. A truncated or corrupt archive ends the import
+     * with the entries read so far saved and the error recorded on the job.
+     */
+    private void readEntries(ArchiveInputStream<?> entries, Job job, List<InvoiceDto.ArchiveEntryResult> results) {
+        int chunkSize = properties.getBatch().getChunkSize();
+        int maxEntries = properties.getArchive().getMaxEntries();
+        List<PendingEntry> chunk = new ArrayList<>(chunkSize);
+        try {
+            int index = 0;
+            ArchiveEntry entry;
+            while ((entry = entries.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (index == maxEntries) {
+                    job.message = "Archive has more than " + maxEntries + " entries, the rest was not imported";
+                    break;
+                }
+                PendingEntry item = new PendingEntry(index++, entry.getName());
+                if (!isInvoice(entry.getName())) {
+                    item.status = InvoiceDto.ArchiveEntryStatus.SKIPPED;
+                    item.message = "Not an XML file";
+                } else if (!entries.canReadEntryData(entry)) {
+                    item.fail("Unsupported compression method or encryption");
+                } else {
+                    spool(entries, item, job);
+                }
+                chunk.add(item);
+                job.entries.incrementAndGet();
+
+                if (chunk.size() == chunkSize) {
+                    results.addAll(finish(chunk, job));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Archive {} could not be read to the end: {}", job.archive, e.getMessage());
+            job.message = "Archive is corrupt or truncated: " + e.getMessage();
+        } catch (PayloadTooLargeException e) {
+            // The compressed request body inflates past invoice.payload.max-decompressed-bulk-size.
+            log.warn("Archive {} was not read to the end: {}", job.archive, e.getMessage());
+            job.message = e.getMessage() + ", the rest was not imported";
+        } finally {
+            if (!chunk.isEmpty()) {
+                results.addAll(finish(chunk, job));
+            }
+        }
+    }
+
+    private void spool(InputStream entry, PendingEntry item, Job job) throws IOException {
+        InvoiceProperties.Payload limits = properties.getPayload();
+        try (SpoolingOutputStream spool = new SpoolingOutputStream(limits.getSpillThreshold().toBytes(),
+                limits.getMaxSize().toBytes(), Paths.get(limits.getSpillDirectory()))) {
+            entry.transferTo(spool);
+            SpooledPayload payload = spool.toPayload();
+            job.bytes.addAndGet(payload.size());
+            try {
+                item.parsing = CompletableFuture.runAsync(() -> parse(item, payload), parsingExecutor);
+            } catch (RejectedExecutionException e) {
+                // The parsing pool is saturated by other requests; parse here, which also slows the reader down.
+                parse(item, payload);
+            }
+        } catch (PayloadTooLargeException e) {
+            // The rest of the entry is skipped by the next getNextEntry().
+            item.fail(e.getMessage());
+        }
+    }
+
+    private void parse(PendingEntry item, SpooledPayload payload) {
+        try (payload) {
+            item.invoice = invoiceService.parseInvoice(payload);
+            if (item.invoice.getId() != null) {
+                item.status = InvoiceDto.ArchiveEntryStatus.DUPLICATE;
+            }
+        } catch (Exception e) {
+            item.fail(e.getMessage());
+        }
+    }
+
+    private List<InvoiceDto.ArchiveEntryResult> finish(List<PendingEntry> chunk, Job job) {
+        CompletableFuture.allOf(chunk.stream()
+                .map(item -> item.parsing)
+                .filter(Objects::nonNull)
+                .toArray(CompletableFuture[]::new)).join();
+
+        List<PendingEntry> parsed = chunk.stream()
+                .filter(item -> item.status == null)
+                .toList();
+        if (!parsed.isEmpty()) {
+            List<InvoiceBatchWriter.Result> written = batchWriter.write(parsed.stream().map(item -> item.invoice).toList());
+            for (int i = 0; i < parsed.size(); i++) {
+                PendingEntry item = parsed.get(i);
+                InvoiceBatchWriter.Result result = written.get(i);
+                switch (result.outcome()) {
+                    case SAVED -> item.status = InvoiceDto.ArchiveEntryStatus.SAVED;
+                    case DUPLICATE -> item.status = InvoiceDto.ArchiveEntryStatus.DUPLICATE;
+                    case FAILED -> item.fail(result.message());
+                }
+            }
+        }
+
+        List<InvoiceDto.ArchiveEntryResult> results = new ArrayList<>(chunk.size());
+        for (PendingEntry item : chunk) {
+            job.count(item.status);
+            results.add(InvoiceDto.ArchiveEntryResult.builder()
+                    .index(item.index)
+                    .name(item.name)
+                    .status(item.status)
+                    .id(item.invoice != null ? item.invoice.getId() : null)
+                    .message(item.message)
+                    .build());
+        }
+        log.info("Archive {}: {} entries processed, {} saved", job.archive, job.entries.get(), job.saved.get());
+        return results;
+    }
+
+    private static ArchiveInputStream<?> open(InputStream body) throws IOException {
+        InputStream in = new BufferedInputStream(body, BUFFER_SIZE);
+        if (isGzip(in)) {
+            in = new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        String format;
+        try {
+            format = ArchiveStreamFactory.detect(in);
+        } catch (ArchiveException e) {
+            throw new BadRequestException("Request body is not a ZIP or TAR archive");
+        }
+        return switch (format) {
+            case ArchiveStreamFactory.ZIP -> new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true);
+            case ArchiveStreamFactory.TAR -> new TarArchiveInputStream(in);
+            default -> throw new BadRequestException("Unsupported archive format: " + format);
+        };
+    }
+
+    private static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    private static boolean isInvoice(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        String fileName = lower.substring(lower.lastIndexOf('/') + 1);
+        return lower.endsWith(".xml") && !fileName.startsWith(".") && !lower.startsWith("__macosx/");
+    }
+
+    private static final class Job {
+        private final UUID id;
+        private final String archive;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger entries = new AtomicInteger();
+        private final AtomicInteger saved = new AtomicInteger();
+        private final AtomicInteger duplicates = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile String message;
+
+        private Job(UUID id, String archive) {
+            this.id = id;
+            this.archive = archive;
+        }
+
+        private void count(InvoiceDto.ArchiveEntryStatus status) {
+            switch (status) {
+                case SAVED -> saved.incrementAndGet();
+                case DUPLICATE -> duplicates.incrementAndGet();
+                case SKIPPED -> skipped.incrementAndGet();
+                case FAILED -> failed.incrementAndGet();
+            }
+        }
+
+        private InvoiceDto.ArchiveReport snapshot() {
+            return InvoiceDto.ArchiveReport.builder()
+                    .job(id)
+                    .archive(archive)
+                    .status(InvoiceDto.ArchiveStatus.RUNNING)
+                    .message(message)
+                    .entries(entries.get())
+                    .saved(saved.get())
+                    .duplicates(duplicates.get())
+                    .skipped(skipped.get())
+                    .failed(failed.get())
+                    .bytes(bytes.get())
+                    .startedAt(startedAt)
+                    .build();
+        }
+    }
+
+    private static final class PendingEntry {
+        private final int index;
+        private final String name;
+        private volatile CompletableFuture<Void> parsing;
+        private volatile Invoice invoice;
+        private volatile InvoiceDto.ArchiveEntryStatus status;
+        private volatile String message;
+
+        private PendingEntry(int index, String name) {
+            this.index = index;
+            this.name = name;
+        }
+
+        private void fail(String message) {
+            this.status = InvoiceDto.ArchiveEntryStatus.FAILED;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.ExecutorConfig;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Exception.InvoiceProcessingException;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Service.InvoiceBatchService;
+import com.invoice.invoice.Service.InvoiceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@Slf4j
+public class InvoiceBatchServiceImpl implements InvoiceBatchService {
+
+    private final InvoiceService invoiceService;
+    private final InvoiceBatchWriter batchWriter;
+    private final ObjectMapper objectMapper;
+    private final AsyncTaskExecutor parsingExecutor;
+    private final InvoiceProperties properties;
+    private final InvoiceMetrics metrics;
+
+    public InvoiceBatchServiceImpl(InvoiceService invoiceService,
+                                   InvoiceBatchWriter batchWriter,
+                                   InvoiceMetrics metrics,
+                                   ObjectMapper objectMapper,
+                                   @Qualifier(ExecutorConfig.INVOICE_PARSING_EXECUTOR) AsyncTaskExecutor parsingExecutor,
+                                   InvoiceProperties properties) {
+        this.invoiceService = invoiceService;
+        this.batchWriter = batchWriter;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.parsingExecutor = parsingExecutor;
+        this.properties = properties;
+    }
+
+    @Override
+    public InvoiceDto.BatchResponse processBatch(InputStream body) {
+        int chunkSize = properties.getBatch().getChunkSize();
+        List<InvoiceDto.BatchItemResult> results = new ArrayList<>();
+        List<PendingItem> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<InvoiceDto.InvoiceRequest> items =
+                     objectMapper.readerFor(InvoiceDto.InvoiceRequest.class).readValues(body)) {
+            int index = 0;
+            while (true) {
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    InvoiceDto.InvoiceRequest request = items.nextValue();
+                    chunk.add(new PendingItem(index, request != null ? request.getBase64Xml() : null));
+                } catch (JsonParseException e) {
+                    // The stream itself is broken, nothing after this point can be read reliably.
+                    results.add(failed(index, "Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    results.add(failed(index, "Invalid item: " + e.getOriginalMessage()));
+                }
+                index++;
+
+                if (chunk.size() == chunkSize) {
+                    results.addAll(processChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new InvoiceProcessingException("Failed to read invoice batch", e);
+        }
+
+        if (!chunk.isEmpty()) {
+            results.addAll(processChunk(chunk));
+        }
+        results.sort(Comparator.comparingInt(InvoiceDto.BatchItemResult::getIndex));
+
+        int saved = (int) results.stream().filter(r -> r.getStatus() == InvoiceDto.BatchItemStatus.SAVED).count();
+        // Duplicates are answered as saved items here, so they are counted as saved.
+        metrics.batchProcessed(saved, 0, results.size() - saved);
+        log.info("Processed invoice batch: {} saved, {} failed", saved, results.size() - saved);
+        return InvoiceDto.BatchResponse.builder()
+                .total(results.size())
+                .saved(saved)
+                .failed(results.size() - saved)
+                .results(results)
+                .build();
+    }
+
+    private List<InvoiceDto.BatchItemResult> processChunk(List<PendingItem> chunk) {
+        List<CompletableFuture<Void>> parsing = new ArrayList<>(chunk.size());
+        for (PendingItem item : chunk) {
+            parsing.add(CompletableFuture.runAsync(() -> parse(item), parsingExecutor));
+        }
+        CompletableFuture.allOf(parsing.toArray(CompletableFuture[]::new)).join();
+
+        // Invoices that already carry an id were recognized as duplicates and are not written again.
+        List<PendingItem> parsed = chunk.stream()
+                .filter(item -> item.invoice != null && item.invoice.getId() == null)
+                .toList();
+        if (!parsed.isEmpty()) {
+            persist(parsed);
+        }
+
+        List<InvoiceDto.BatchItemResult> results = new ArrayList<>(chunk.size());
+        for (PendingItem item : chunk) {
+            results.add(item.error == null
+                    ? InvoiceDto.BatchItemResult.builder()
+                    .index(item.index)
+                    .status(InvoiceDto.BatchItemStatus.SAVED)
+                    .id(item.invoice.getId())
+                    .build()
+                    : failed(item.index, item.error));
+        }
+        return results;
+    }
+
+    private void parse(PendingItem item) {
+        if (!StringUtils.hasText(item.base64Xml)) {
+            item.error = "base64xml is required";
+            return;
+        }
+        try {
+            item.invoice = invoiceService.parseInvoice(item.base64Xml);
+        } catch (Exception e) {
+            item.error = e.getMessage();
+        } finally {
+            item.base64Xml = null;
+        }
+    }
+
+    private void persist(List<PendingItem> items) {
+        // Duplicates are reported as saved, with the id of the stored copy.
+        List<InvoiceBatchWriter.Result> written = batchWriter.write(items.stream().map(item -> item.invoice).toList());
+        for (int i = 0; i < items.size(); i++) {
+            if (written.get(i).outcome() == InvoiceBatchWriter.Outcome.FAILED) {
+                items.get(i).error = written.get(i).message();
+            }
+        }
+    }
+
+    private InvoiceDto.BatchItemResult failed(int index, String message) {
+        return InvoiceDto.BatchItemResult.builder()
+                .index(index)
+                .status(InvoiceDto.BatchItemStatus.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private static final class PendingItem {
+        private final int index;
+        private String base64Xml;
+        private Invoice invoice;
+        private String error;
+
+        private PendingItem(int index, String base64Xml) {
+            this.index = index;
+            this.base64Xml = base64Xml;
+        }
+    }
+}
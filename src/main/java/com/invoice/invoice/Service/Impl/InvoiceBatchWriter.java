@@ -0,0 +1,179 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
+import com.invoice.invoice.Service.SellerSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Saves parsed invoices for the batch and archive endpoints. A chunk is written in one
+ * transaction so Hibernate can send it as JDBC batches; if the chunk fails, its invoices are
+ * retried one by one to isolate the offending ones. Copies within a chunk never reach the
+ * database, as they would fail the whole chunk. Outbox events are written with the invoices.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceBatchWriter {
+
+    public enum Outcome {
+        SAVED,
+        DUPLICATE,
+        FAILED
+    }
+
+    /**
+     * What became of one invoice; {@code message} is set for failures only.
+     */
+    public record Result(Outcome outcome, String message) {
+        private static final Result SAVED = new Result(Outcome.SAVED, null);
+        private static final Result DUPLICATE = new Result(Outcome.DUPLICATE, null);
+
+        private static Result failed(String message) {
+            return new Result(Outcome.FAILED, message);
+        }
+    }
+
+    private final InvoiceRepository repo;
+    private final TransactionTemplate transactionTemplate;
+    private final InvoiceDeduplicator deduplicator;
+    private final SellerSummaryService sellerSummaries;
+    private final InvoiceMetrics metrics;
+    private final InvoiceOutbox outbox;
+
+    /**
+     * Saves the invoices and sets their ids. Returns the result of each invoice in the same order.
+     * An invoice that was already stored, or appears earlier in the list, with the same content or
+     * idempotency key is a duplicate and gets the stored id. A different invoice reusing the seller
+     * and number of a stored or earlier one fails.
+     */
+    public List<Result> write(List<Invoice> invoices) {
+        int size = invoices.size();
+        // Index of the earlier invoice each one repeats, or -1.
+        int[] copyOf = new int[size];
+        boolean[] conflicting = new boolean[size];
+        Arrays.fill(copyOf, -1);
+        Map<String, Integer> byContent = new HashMap<>();
+        Map<String, Integer> byNumber = new HashMap<>();
+        List<Invoice> distinct = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Invoice invoice = invoices.get(i);
+            Integer first = invoice.getContentHash() != null ? byContent.putIfAbsent(invoice.getContentHash(), i) : null;
+            if (first == null && invoice.getIdempotencyKey() != null) {
+                first = byContent.putIfAbsent("key:" + invoice.getIdempotencyKey(), i);
+            }
+            if (first == null && invoice.getNip() != null && invoice.getP2() != null) {
+                first = byNumber.putIfAbsent(invoice.getNip() + '/' + invoice.getP2(), i);
+                conflicting[i] = first != null;
+            }
+            if (first != null) {
+                copyOf[i] = first;
+            } else {
+                distinct.add(invoice);
+            }
+        }
+
+        List<Result> written = writeDistinct(distinct);
+        Result[] results = new Result[size];
+        for (int i = 0, next = 0; i < size; i++) {
+            if (copyOf[i] < 0) {
+                results[i] = written.get(next++);
+                continue;
+            }
+            Invoice invoice = invoices.get(i);
+            Invoice first = invoices.get(copyOf[i]);
+            Result firstResult = results[copyOf[i]];
+            if (conflicting[i]) {
+                results[i] = Result.failed(conflict(invoice, first.getId()));
+            } else if (firstResult.outcome() == Outcome.FAILED) {
+                results[i] = firstResult;
+            } else {
+                invoice.setId(first.getId());
+                results[i] = Result.DUPLICATE;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<Result> writeDistinct(List<Invoice> invoices) {
+        Result[] results = new Result[invoices.size()];
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.saveAll(invoices);
+                outbox.invoicesSaved(invoices);
+                repo.flush();
+            });
+            metrics.record(InvoiceMetrics.Stage.PERSIST_BATCH, start);
+            saved(invoices);
+            Arrays.fill(results, Result.SAVED);
+        } catch (Exception e) {
+            log.warn("Batch insert of {} invoices failed, retrying individually: {}", invoices.size(), e.getMessage());
+            List<Invoice> saved = new ArrayList<>(invoices.size());
+            for (int i = 0; i < invoices.size(); i++) {
+                results[i] = writeOne(invoices.get(i));
+                if (results[i].outcome() == Outcome.SAVED) {
+                    saved.add(invoices.get(i));
+                }
+            }
+            saved(saved);
+        }
+        return Arrays.asList(results);
+    }
+
+    private Result writeOne(Invoice invoice) {
+        invoice.setId(null);
+        invoice.getLines().forEach(line -> line.setId(null));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.save(invoice);
+                outbox.invoiceSaved(invoice);
+                repo.flush();
+            });
+            return Result.SAVED;
+        } catch (DataIntegrityViolationException duplicate) {
+            invoice.setId(null);
+            Optional<Long> stored = deduplicator.findStored(invoice);
+            if (stored.isPresent()) {
+                invoice.setId(stored.get());
+                return Result.DUPLICATE;
+            }
+            return Result.failed(deduplicator.findConflicting(invoice)
+                    .map(id -> conflict(invoice, id))
+                    .orElse(duplicate.getMessage()));
+        } catch (Exception e) {
+            invoice.setId(null);
+            return Result.failed(e.getMessage());
+        }
+    }
+
+    private void saved(List<Invoice> invoices) {
+        if (invoices.isEmpty()) {
+            return;
+        }
+        invoices.forEach(deduplicator::remember);
+        sellerSummaries.invoicesSaved(invoices);
+    }
+
+    private static String conflict(Invoice invoice, Long id) {
+        return id != null
+                ? "Invoice " + invoice.getP2() + " of seller " + invoice.getNip()
+                + " is already stored with id " + id + " and different content"
+                : "Invoice " + invoice.getP2() + " of seller " + invoice.getNip()
+                + " appears more than once with different content";
+    }
+}
@@ -0,0 +1,93 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Exception.BadRequestException;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
+import com.invoice.invoice.Repository.InvoiceOutboxRepository;
+import com.invoice.invoice.Service.InvoiceChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change feed over the published outbox events. Held requests cost no thread while they wait;
+ * {@link #poll()} checks the last published position once per relay run and only queries the
+ * events for requests that are behind it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceChangeServiceImpl implements InvoiceChangeService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final InvoiceOutboxRepository repo;
+    private final InvoiceOutbox outbox;
+    private final InvoiceProperties properties;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public InvoiceDto.ChangePage getChanges(long since, int limit) {
+        if (since < 0) {
+            throw new BadRequestException("since must not be negative");
+        }
+        List<InvoiceDto.InvoiceChange> items = repo.findPublishedAfter(since, Math.clamp(limit, 1, MAX_PAGE_SIZE))
+                .stream()
+                .map(outbox::toChange)
+                .toList();
+        return InvoiceDto.ChangePage.builder()
+                .items(items)
+                .nextSince(items.isEmpty() ? since : items.getLast().getPosition())
+                .build();
+    }
+
+    @Override
+    public DeferredResult<InvoiceDto.ChangePage> awaitChanges(long since, int limit, Duration wait) {
+        InvoiceDto.ChangePage page = getChanges(since, limit);
+        Duration maxWait = properties.getOutbox().getMaxWait();
+        Duration timeout = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+        if (!page.getItems().isEmpty() || timeout.isNegative() || timeout.isZero()) {
+            DeferredResult<InvoiceDto.ChangePage> result = new DeferredResult<>();
+            result.setResult(page);
+            return result;
+        }
+        // On timeout the empty page is returned, so the client simply asks again.
+        DeferredResult<InvoiceDto.ChangePage> result = new DeferredResult<>(timeout.toMillis(), page);
+        Waiter waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        return result;
+    }
+
+    @Override
+    public void poll() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        long last = repo.findLastPosition().orElse(0L);
+        for (Waiter waiter : waiters) {
+            if (waiter.since >= last || waiter.result.isSetOrExpired()) {
+                continue;
+            }
+            try {
+                InvoiceDto.ChangePage page = getChanges(waiter.since, waiter.limit);
+                if (!page.getItems().isEmpty()) {
+                    waiter.result.setResult(page);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to read changes after {}: {}", waiter.since, e.getMessage());
+                waiter.result.setErrorResult(e);
+            }
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<InvoiceDto.ChangePage> result) {
+    }
+}
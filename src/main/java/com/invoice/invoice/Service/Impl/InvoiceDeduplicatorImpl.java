@@ -0,0 +1,97 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the content hashes and idempotency keys of recently saved invoices in a bounded LRU map.
+ * The unique indexes on {@code invoices} remain the source of truth: a miss here never rejects
+ * anything, it only means the duplicate is caught by the insert instead.
+ */
+@Service
+public class InvoiceDeduplicatorImpl implements InvoiceDeduplicator {
+
+    private static final String HASH_PREFIX = "h:";
+    private static final String KEY_PREFIX = "k:";
+
+    private final InvoiceRepository repo;
+    private final Map<String, Long> recent;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public InvoiceDeduplicatorImpl(InvoiceRepository repo, InvoiceProperties properties) {
+        this.repo = repo;
+        int capacity = properties.getDedup().getCacheSize();
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Long> findRecent(String contentHash, String idempotencyKey) {
+        lock.lock();
+        try {
+            Long id = idempotencyKey != null ? recent.get(KEY_PREFIX + idempotencyKey) : null;
+            if (id == null && contentHash != null) {
+                id = recent.get(HASH_PREFIX + contentHash);
+            }
+            return Optional.ofNullable(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Long> findStored(String contentHash, String idempotencyKey) {
+        Optional<Long> id = idempotencyKey != null ? repo.findIdByIdempotencyKey(idempotencyKey) : Optional.empty();
+        if (id.isEmpty() && contentHash != null) {
+            id = repo.findIdByContentHash(contentHash);
+        }
+        id.ifPresent(existing -> remember(contentHash, idempotencyKey, existing));
+        return id;
+    }
+
+    @Override
+    public Optional<Long> findStored(Invoice invoice) {
+        return findStored(invoice.getContentHash(), invoice.getIdempotencyKey());
+    }
+
+    @Override
+    public Optional<Long> findConflicting(Invoice invoice) {
+        if (invoice.getNip() == null || invoice.getP2() == null) {
+            return Optional.empty();
+        }
+        return repo.findIdByNipAndP2(invoice.getNip(), invoice.getP2());
+    }
+
+    @Override
+    public void remember(Invoice invoice) {
+        if (invoice.getId() != null) {
+            remember(invoice.getContentHash(), invoice.getIdempotencyKey(), invoice.getId());
+        }
+    }
+
+    private void remember(String contentHash, String idempotencyKey, Long id) {
+        lock.lock();
+        try {
+            if (contentHash != null) {
+                recent.put(HASH_PREFIX + contentHash, id);
+            }
+            if (idempotencyKey != null) {
+                recent.put(KEY_PREFIX + idempotencyKey, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
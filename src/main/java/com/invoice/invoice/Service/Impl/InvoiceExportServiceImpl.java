@@ -0,0 +1,128 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class InvoiceExportServiceImpl implements InvoiceExportService {
+
+    private static final int FETCH_SIZE = 1000;
+    private static final DateTimeFormatter CREATED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+
+    private final InvoiceRepository repo;
+    private final ObjectWriter ndjsonWriter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public InvoiceExportServiceImpl(InvoiceRepository repo, ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.ndjsonWriter = objectMapper.writerFor(InvoiceDto.InvoiceSummary.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void export(InvoiceDto.InvoiceFilter filter, InvoiceDto.ExportFormat format, OutputStream out) throws IOException {
+        // Writer buffering keeps syscalls down; rows are flushed every fetch so the client sees
+        // data as soon as the first rows arrive from the database.
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long start = System.nanoTime();
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                // PostgreSQL only streams with a cursor inside a transaction; otherwise the driver
+                // reads the whole result before returning the first row.
+                try (Stream<InvoiceDto.InvoiceSummary> invoices = repo.stream(filter, FETCH_SIZE)) {
+                    return write(invoices.iterator(), format, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} invoices as {} in {} ms", rows, format,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; there is no response left to report it in.
+            log.warn("Invoice export aborted: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    private long write(Iterator<InvoiceDto.InvoiceSummary> invoices, InvoiceDto.ExportFormat format,
+                       Writer writer) throws IOException {
+        if (format == InvoiceDto.ExportFormat.CSV) {
+            writer.write("id,nip,p1,p2,created_at\n");
+            writer.flush();
+        }
+        long rows = 0;
+        while (invoices.hasNext()) {
+            InvoiceDto.InvoiceSummary invoice = invoices.next();
+            if (format == InvoiceDto.ExportFormat.CSV) {
+                writeCsv(invoice, writer);
+            } else {
+                ndjsonWriter.writeValue(writer, invoice);
+                writer.write('\n');
+            }
+            if (++rows % FETCH_SIZE == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsv(InvoiceDto.InvoiceSummary invoice, Writer writer) throws IOException {
+        writer.write(String.valueOf(invoice.getId()));
+        writer.write(',');
+        writeCsvField(invoice.getNip(), writer);
+        writer.write(',');
+        if (invoice.getP1() != null) {
+            writer.write(invoice.getP1().toString());
+        }
+        writer.write(',');
+        writeCsvField(invoice.getP2(), writer);
+        writer.write(',');
+        if (invoice.getCreatedAt() != null) {
+            writer.write(CREATED_AT_FORMAT.format(invoice.getCreatedAt()));
+        }
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(String value, Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
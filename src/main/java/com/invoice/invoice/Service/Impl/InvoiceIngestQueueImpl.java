@@ -0,0 +1,318 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Exception.Base64DecodingException;
+import com.invoice.invoice.Exception.CapacityExceededException;
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import com.invoice.invoice.Io.Base64Decoding;
+import com.invoice.invoice.Service.InvoiceIngestQueue;
+import com.invoice.invoice.Service.InvoiceService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Bounded in-process ingest queue backed by an on-disk journal. Every accepted payload is written
+ * to {@code <ticket>.pending} (fsynced, atomically renamed) before the request returns, so it
+ * survives a restart; on startup pending files are queued again, and submissions are turned away
+ * until that is done so no file is queued twice. Finished tickets leave a {@code <ticket>.status}
+ * file behind for polling until the retention period expires.
+ */
+@Service
+@Slf4j
+public class InvoiceIngestQueueImpl implements InvoiceIngestQueue {
+
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final String STATUS_SUFFIX = ".status";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final InvoiceService invoiceService;
+    private final ObjectMapper objectMapper;
+    private final InvoiceProperties.Ingest config;
+    private final Path journal;
+    private final BlockingQueue<UUID> queue;
+    private final Map<UUID, InvoiceDto.TicketResponse> active = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile boolean recovered;
+
+    public InvoiceIngestQueueImpl(InvoiceService invoiceService, ObjectMapper objectMapper, InvoiceProperties properties) {
+        this.invoiceService = invoiceService;
+        this.objectMapper = objectMapper;
+        this.config = properties.getIngest();
+        this.journal = Paths.get(config.getJournalDirectory());
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(journal);
+        Thread.Builder builder = Thread.ofPlatform().name("invoice-ingest-", 1).daemon(true);
+        for (int i = 0; i < config.getWorkers(); i++) {
+            workers.add(builder.start(this::work));
+        }
+        Thread.ofPlatform().name("invoice-ingest-recovery").daemon(true).start(this::recover);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Override
+    public InvoiceDto.TicketResponse submit(String base64Xml) {
+        checkPayload(base64Xml);
+        if (!recovered) {
+            // A file journaled now could also be picked up by the recovery scan.
+            throw new CapacityExceededException("Ingest queue is re-queuing journaled invoices, please retry later");
+        }
+        if (queue.remainingCapacity() == 0) {
+            throw new CapacityExceededException("Ingest queue is full, please retry later");
+        }
+
+        UUID ticket = UUID.randomUUID();
+        Path pending = pendingFile(ticket);
+        try {
+            Path tmp = journal.resolve(ticket + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(base64Xml.getBytes(StandardCharsets.US_ASCII));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, pending, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal invoice " + ticket, e);
+        }
+
+        InvoiceDto.TicketResponse status = InvoiceDto.TicketResponse.builder()
+                .ticket(ticket)
+                .status(InvoiceDto.TicketStatus.QUEUED)
+                .acceptedAt(LocalDateTime.now())
+                .build();
+        active.put(ticket, status);
+        if (!queue.offer(ticket)) {
+            active.remove(ticket);
+            deleteQuietly(pending);
+            throw new CapacityExceededException("Ingest queue is full, please retry later");
+        }
+        log.debug("Accepted invoice ticket {}", ticket);
+        return status;
+    }
+
+    @Override
+    public Optional<InvoiceDto.TicketResponse> status(UUID ticket) {
+        InvoiceDto.TicketResponse status = active.get(ticket);
+        if (status != null) {
+            return Optional.of(status);
+        }
+        Path statusFile = statusFile(ticket);
+        if (!Files.exists(statusFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(statusFile.toFile(), InvoiceDto.TicketResponse.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read status of ticket " + ticket, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT1H")
+    void purgeExpiredStatuses() {
+        Instant cutoff = Instant.now().minus(config.getStatusRetention());
+        try (Stream<Path> files = Files.list(journal)) {
+            files.filter(file -> file.getFileName().toString().endsWith(STATUS_SUFFIX))
+                    .filter(file -> lastModified(file).isBefore(cutoff))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Failed to purge expired ticket statuses: {}", e.getMessage());
+        }
+    }
+
+    private void recover() {
+        try {
+            requeuePending();
+        } finally {
+            recovered = true;
+        }
+    }
+
+    private void requeuePending() {
+        List<Path> pending;
+        try (Stream<Path> files = Files.list(journal)) {
+            pending = files.filter(file -> file.getFileName().toString().endsWith(PENDING_SUFFIX))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+        } catch (IOException e) {
+            log.error("Failed to scan ingest journal {}: {}", journal, e.getMessage());
+            return;
+        }
+        if (!pending.isEmpty()) {
+            log.info("Re-queuing {} journaled invoice(s) from {}", pending.size(), journal);
+        }
+        for (Path file : pending) {
+            String name = file.getFileName().toString();
+            UUID ticket = UUID.fromString(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+            active.put(ticket, InvoiceDto.TicketResponse.builder()
+                    .ticket(ticket)
+                    .status(InvoiceDto.TicketStatus.QUEUED)
+                    .acceptedAt(LocalDateTime.ofInstant(lastModified(file), ZoneId.systemDefault()))
+                    .build());
+            try {
+                queue.put(ticket);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (running) {
+            UUID ticket;
+            try {
+                ticket = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (ticket != null) {
+                process(ticket);
+            }
+        }
+    }
+
+    private void process(UUID ticket) {
+        active.computeIfPresent(ticket, (t, status) -> status.toBuilder().status(InvoiceDto.TicketStatus.PROCESSING).build());
+        Path payload = pendingFile(ticket);
+        int attempt = 0;
+        while (running) {
+            try (InputStream in = Files.newInputStream(payload)) {
+                InvoiceDto.InvoiceResponse response = invoiceService.processInvoiceStream(in);
+                complete(ticket, InvoiceDto.TicketStatus.SAVED, response.getId(), response.getMessage());
+                return;
+            } catch (Exception e) {
+                if (!isTransient(e)) {
+                    complete(ticket, InvoiceDto.TicketStatus.FAILED, null, e.getMessage());
+                    return;
+                }
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, 500L << Math.min(attempt++, 6));
+                log.warn("Transient failure processing ticket {}, retrying in {} ms: {}", ticket, backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        // Shutting down: the payload stays in the journal and is picked up again on the next start.
+    }
+
+    private void complete(UUID ticket, InvoiceDto.TicketStatus result, Long invoiceId, String message) {
+        InvoiceDto.TicketResponse previous = active.get(ticket);
+        InvoiceDto.TicketResponse status = InvoiceDto.TicketResponse.builder()
+                .ticket(ticket)
+                .status(result)
+                .invoiceId(invoiceId)
+                .message(message)
+                .acceptedAt(previous != null ? previous.getAcceptedAt() : null)
+                .completedAt(LocalDateTime.now())
+                .build();
+        try {
+            Path tmp = journal.resolve(ticket + ".status.tmp");
+            objectMapper.writeValue(tmp.toFile(), status);
+            Files.move(tmp, statusFile(ticket), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(pendingFile(ticket));
+        } catch (IOException e) {
+            log.error("Failed to record status of ticket {}: {}", ticket, e.getMessage());
+        }
+        active.remove(ticket);
+        log.debug("Ticket {} finished with status {}", ticket, result);
+    }
+
+    private void checkPayload(String base64Xml) {
+        long maxBase64Length = config.getMaxPayloadSize().toBytes() / 3 * 4 + 4;
+        if (base64Xml.length() > maxBase64Length) {
+            throw new PayloadTooLargeException("Invoice exceeds the maximum size of " + config.getMaxPayloadSize());
+        }
+        // Same rules as the decoder later on, so unpadded and URL-safe payloads are accepted.
+        if (Base64Decoding.decodedLength(base64Xml) == 0) {
+            throw new Base64DecodingException("Invalid Base64 length");
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof CapacityExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path pendingFile(UUID ticket) {
+        return journal.resolve(ticket + PENDING_SUFFIX);
+    }
+
+    private Path statusFile(UUID ticket) {
+        return journal.resolve(ticket + STATUS_SUFFIX);
+    }
+
+    private Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.now();
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+}
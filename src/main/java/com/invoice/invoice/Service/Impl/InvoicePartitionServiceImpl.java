@@ -0,0 +1,192 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Service.InvoicePartitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of the invoices table ahead of the clock and retires expired ones.
+ * An expired partition is copied out with {@code COPY} while it is still attached (closed months no
+ * longer receive rows), and only once both files are complete is it detached and dropped together
+ * with its keys and lines. A failure leaves the partition in place for the next run.
+ */
+@Service
+@Slf4j
+public class InvoicePartitionServiceImpl implements InvoicePartitionService {
+
+    // Key of the PostgreSQL advisory lock that serializes partition changes across instances.
+    private static final long PARTITION_LOCK_KEY = 7_301_843_212_914_010_122L;
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InvoiceProperties.Partitions config;
+
+    public InvoicePartitionServiceImpl(DataSource dataSource, TransactionTemplate transactionTemplate,
+                                       InvoiceProperties properties) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.config = properties.getPartitions();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void ensurePartitions() {
+        createUpcomingPartitions();
+    }
+
+    @Scheduled(cron = "${invoice.partitions.cron:0 30 2 * * *}")
+    void maintain() {
+        createUpcomingPartitions();
+        archiveExpiredPartitions();
+    }
+
+    @Override
+    public List<String> createUpcomingPartitions() {
+        List<String> created = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            LocalDateTime covered = partitions().stream()
+                    .map(Partition::upperBound)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder())
+                    .orElse(LocalDateTime.MIN);
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= config.getCreateAhead(); i++) {
+                YearMonth month = current.plusMonths(i);
+                LocalDateTime from = month.atDay(1).atStartOfDay();
+                LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+                if (!to.isAfter(covered)) {
+                    continue;
+                }
+                String name = "invoices_" + month.format(MONTH_SUFFIX);
+                jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF invoices FOR VALUES FROM ('"
+                        + from.format(BOUND) + "') TO ('" + to.format(BOUND) + "')");
+                created.add(name);
+            }
+        });
+        if (!created.isEmpty()) {
+            log.info("Created invoice partitions {}", created);
+        }
+        return created;
+    }
+
+    @Override
+    public List<Path> archiveExpiredPartitions() {
+        Period retention = config.getRetention();
+        if (retention == null) {
+            return List.of();
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        List<Path> archives = new ArrayList<>();
+        for (Partition partition : partitions()) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                archives.addAll(archive(partition));
+            } catch (IOException | SQLException | RuntimeException e) {
+                log.error("Failed to archive invoice partition {}, keeping it: {}", partition.name(), e.getMessage(), e);
+            }
+        }
+        return archives;
+    }
+
+    private List<Path> archive(Partition partition) throws IOException, SQLException {
+        Path directory = Paths.get(config.getArchiveDirectory());
+        Files.createDirectories(directory);
+        String table = '"' + partition.name() + '"';
+        Path invoices = directory.resolve(partition.name() + ".csv.gz");
+        Path lines = directory.resolve(partition.name() + "_lines.csv.gz");
+
+        long start = System.nanoTime();
+        copyOut("COPY (SELECT * FROM " + table + " ORDER BY created_at, id) TO STDOUT WITH (FORMAT csv, HEADER)",
+                invoices);
+        copyOut("COPY (SELECT l.* FROM invoice_lines l JOIN " + table + " i ON i.id = l.invoice_id"
+                + " ORDER BY l.invoice_id, l.line_number) TO STDOUT WITH (FORMAT csv, HEADER)", lines);
+
+        Integer removed = transactionTemplate.execute(status -> {
+            lock();
+            jdbcTemplate.execute("ALTER TABLE invoices DETACH PARTITION " + table);
+            // Cascades to the lines of these invoices.
+            int keys = jdbcTemplate.update("DELETE FROM invoice_keys k USING " + table + " i WHERE k.invoice_id = i.id");
+            jdbcTemplate.execute("DROP TABLE " + table);
+            return keys;
+        });
+        log.info("Archived invoice partition {} ({} invoices) to {} in {} ms", partition.name(), removed,
+                directory, (System.nanoTime() - start) / 1_000_000);
+        return List.of(invoices, lines);
+    }
+
+    /**
+     * Streams the output of a {@code COPY ... TO STDOUT} into a gzip file. The file only appears
+     * under its final name once it is complete.
+     */
+    private void copyOut(String sql, Path target) throws IOException, SQLException {
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        try (Connection connection = dataSource.getConnection();
+             OutputStream out = new GZIPOutputStream(
+                     new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE), BUFFER_SIZE)) {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void lock() {
+        jdbcTemplate.query("select pg_advisory_xact_lock(?)", rs -> null, PARTITION_LOCK_KEY);
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query("""
+                        select c.relname, pg_get_expr(c.relpartbound, c.oid)
+                          from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                         where i.inhparent = 'invoices'::regclass
+                         order by c.relname""",
+                (rs, rowNum) -> new Partition(rs.getString(1), upperBound(rs.getString(2))));
+    }
+
+    /**
+     * Upper bound of a {@code FOR VALUES FROM (...) TO (...)} clause; null for {@code MAXVALUE}
+     * and the default partition, which never expire.
+     */
+    private static LocalDateTime upperBound(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1).replace(' ', 'T')) : null;
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {
+    }
+}
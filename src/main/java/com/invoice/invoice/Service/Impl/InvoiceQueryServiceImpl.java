@@ -0,0 +1,73 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Exception.BadRequestException;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceQueryServiceImpl implements InvoiceQueryService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final InvoiceRepository repo;
+
+    @Override
+    @Transactional(readOnly = true)
+    public InvoiceDto.InvoicePage search(InvoiceDto.InvoiceFilter filter, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = parseCursorPart(position[0], LocalDateTime::parse);
+            afterId = parseCursorPart(position[1], Long::valueOf);
+        }
+
+        // One extra row tells whether another page follows without a separate count query.
+        List<InvoiceDto.InvoiceSummary> rows = repo.search(filter, afterCreatedAt, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<InvoiceDto.InvoiceSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return InvoiceDto.InvoicePage.builder()
+                .items(items)
+                .nextCursor(hasMore ? encodeCursor(items.getLast()) : null)
+                .build();
+    }
+
+    private static String encodeCursor(InvoiceDto.InvoiceSummary last) {
+        String position = last.getCreatedAt() + "," + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (position.length == 2) {
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        throw new BadRequestException("Invalid cursor");
+    }
+
+    private static <T> T parseCursorPart(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
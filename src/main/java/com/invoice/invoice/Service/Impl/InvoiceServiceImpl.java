@@ -1,88 +1,557 @@
 package com.invoice.invoice.Service.Impl;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.invoice.invoice.Config.InvoiceProperties;
 import com.invoice.invoice.Dto.InvoiceDto;
 import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Entity.InvoiceLine;
+import com.invoice.invoice.Exception.BadRequestException;
+import com.invoice.invoice.Exception.Base64DecodingException;
+import com.invoice.invoice.Exception.CapacityExceededException;
+import com.invoice.invoice.Exception.ConflictException;
 import com.invoice.invoice.Exception.InvoiceProcessingException;
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import com.invoice.invoice.Exception.PrevalidationException;
+import com.invoice.invoice.Exception.XmlParsingException;
+import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Io.Base64Decoding;
+import com.invoice.invoice.Io.ByteArrayPool;
+import com.invoice.invoice.Io.SpooledPayload;
+import com.invoice.invoice.Io.SpoolingOutputStream;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
 import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
 import com.invoice.invoice.Service.InvoiceService;
+import com.invoice.invoice.Service.SellerSummaryService;
 import com.invoice.invoice.Service.XmlService;
+import com.invoice.invoice.Xml.BoundedPool;
+import com.invoice.invoice.Xml.ExtractedFields;
+import com.invoice.invoice.Xml.InvoiceFields;
+import com.invoice.invoice.Xml.XmlConcurrencyLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.w3c.dom.Document;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Base64;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class InvoiceServiceImpl implements InvoiceService {
 
+    private static final String BASE64_XML_PROPERTY = "base64xml";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // Decoded invoices up to this size are decoded into pooled buffers; larger ones get their own.
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
     private final InvoiceRepository repo;
     private final XmlService xmlService;
+    private final InvoiceProperties properties;
+    private final XmlConcurrencyLimiter xmlLimiter;
+    private final InvoiceDeduplicator deduplicator;
+    private final InvoiceMetrics metrics;
+    private final SellerSummaryService sellerSummaries;
+    private final InvoiceOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ByteArrayPool decodeBuffers = new ByteArrayPool(BoundedPool.DEFAULT_CAPACITY, MAX_POOLED_BUFFER);
 
-    @Transactional
+    // Not @Transactional: the transaction (and its pooled connection) would otherwise be held during
+    // decoding and XML work. Only the save below, with its outbox event, runs in a transaction.
     @Override
     public InvoiceDto.InvoiceResponse processInvoice(String base64Xml) {
+        return processInvoice(base64Xml, null);
+    }
+
+    @Override
+    public InvoiceDto.InvoiceResponse processInvoice(String base64Xml, String idempotencyKey) {
+        long start = System.nanoTime();
+        metrics.started();
         try {
             log.info("Starting invoice processing");
 
-            String xmlContent = xmlService.decodeBase64(base64Xml);
-            log.debug("Successfully decoded Base64 XML");
-
-            Document document = xmlService.parseXml(xmlContent);
-            log.debug("Successfully parsed XML document");
-
+            byte[] buffer = decodeBuffers.borrow(decodeBufferSize(base64Xml));
             try {
-                ClassPathResource xsdResource = new ClassPathResource("xsd/faktura.xsd");
-                if (xsdResource.exists()) {
-                    try (InputStream xsdStream = xsdResource.getInputStream()) {
-                        xmlService.validateXml(document, xsdStream);
-                        log.debug("XML validation successful");
-                    }
-                } else {
-                    log.warn("XSD file not found, skipping validation");
-                }
-            } catch (Exception e) {
-                log.warn("XSD validation failed, proceeding without validation: {}", e.getMessage());
+                int length = decode(base64Xml, buffer);
+                log.debug("Successfully decoded Base64 XML");
+                return process(buffer, length, idempotencyKey);
+            } finally {
+                decodeBuffers.release(buffer);
             }
+        } catch (CapacityExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw failed(e);
+        } finally {
+            metrics.finished(start);
+        }
+    }
 
-            String nip = xmlService.extractNip(document);
-            String p1 = xmlService.extractP1(document);
-            String p2 = xmlService.extractP2(document);
-
-            log.debug("Extracted data - NIP: {}, P1: {}, P2: {}", nip, p1, p2);
-
-            Invoice invoice = new Invoice();
-            invoice.setNip(nip);
-            invoice.setP1(p1);
-            invoice.setP2(p2);
-
-            repo.save(invoice);
-            log.info("Successfully saved invoice with NIP: {}", nip);
+    @Override
+    public InvoiceDto.InvoiceResponse processInvoiceJson(InputStream json, String idempotencyKey) {
+        long start = System.nanoTime();
+        metrics.started();
+        try {
+            log.info("Starting invoice processing");
+            try (SpooledPayload payload = readJson(json)) {
+                log.debug("Decoded {} bytes of XML{}", payload.size(), payload.isSpilled() ? " to a temporary file" : "");
+                return process(payload, idempotencyKey);
+            }
+        } catch (CapacityExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw failed(e);
+        } finally {
+            metrics.finished(start);
+        }
+    }
 
-            return new InvoiceDto.InvoiceResponse("Invoice saved successfully");
+    @Override
+    public InvoiceDto.InvoiceResponse processInvoiceStream(InputStream base64Xml) {
+        return processInvoiceStream(base64Xml, null);
+    }
 
+    @Override
+    public InvoiceDto.InvoiceResponse processInvoiceStream(InputStream base64Xml, String idempotencyKey) {
+        long start = System.nanoTime();
+        metrics.started();
+        try {
+            log.info("Starting streaming invoice processing");
+            try (SpooledPayload payload = spool(xmlService.decodeBase64(base64Xml))) {
+                return process(payload, idempotencyKey);
+            }
+        } catch (CapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to process invoice: {}", e.getMessage(), e);
-            throw new InvoiceProcessingException("Failed to process invoice: " + e.getMessage(), e);
+            throw failed(e);
+        } finally {
+            metrics.finished(start);
         }
     }
 
     @Override
     public InvoiceDto.InvoiceResponse processXmlInvoice(String xmlContent) {
         log.info("Received XML invoice processing request");
+        long start = System.nanoTime();
+        metrics.started();
         try {
-            String base64Xml = Base64.getEncoder().encodeToString(xmlContent.getBytes());
-            processInvoice(base64Xml);
-
-            return new InvoiceDto.InvoiceResponse("Invoice saved successfully");
+            byte[] xml = xmlContent.getBytes(StandardCharsets.UTF_8);
+            metrics.recordPayloadSize(xml.length);
+            return process(xml, xml.length, null);
+        } catch (CapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
+            RuntimeException rejection = rejection(e);
+            if (rejection != null) {
+                throw rejection;
+            }
+            metrics.failed();
             log.error("Failed to process XML invoice: {}", e.getMessage());
             throw new InvoiceProcessingException("Failed to process XML invoice", e);
+        } finally {
+            metrics.finished(start);
+        }
+    }
+
+    @Override
+    public InvoiceDto.InvoiceResponse processXmlStream(InputStream xml, String idempotencyKey) {
+        long start = System.nanoTime();
+        metrics.started();
+        try {
+            log.info("Starting raw XML invoice processing");
+            try (SpooledPayload payload = spool(xml)) {
+                return process(payload, idempotencyKey);
+            }
+        } catch (CapacityExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw failed(e);
+        } finally {
+            metrics.finished(start);
+        }
+    }
+
+    @Override
+    public Invoice parseInvoice(String base64Xml) {
+        byte[] buffer = null;
+        try {
+            buffer = decodeBuffers.borrow(decodeBufferSize(base64Xml));
+            int length = decode(base64Xml, buffer);
+            String contentHash = contentHash(buffer, length);
+
+            Optional<Long> existing = deduplicator.findRecent(contentHash, null);
+            Invoice invoice;
+            if (existing.isPresent()) {
+                invoice = new Invoice();
+                invoice.setId(existing.get());
+            } else {
+                invoice = toInvoice(new ByteArrayInputStream(buffer, 0, length));
+            }
+            invoice.setContentHash(contentHash);
+            return invoice;
+        } catch (RuntimeException e) {
+            RuntimeException rejection = rejection(e);
+            throw rejection != null ? rejection : e;
+        } finally {
+            if (buffer != null) {
+                decodeBuffers.release(buffer);
+            }
+        }
+    }
+
+    @Override
+    public Invoice parseInvoice(SpooledPayload xml) throws IOException {
+        metrics.recordPayloadSize(xml.size());
+        Optional<Long> existing = deduplicator.findRecent(xml.contentHash(), null);
+        Invoice invoice;
+        if (existing.isPresent()) {
+            invoice = new Invoice();
+            invoice.setId(existing.get());
+        } else {
+            try (InputStream in = xml.openStream()) {
+                invoice = toInvoice(in);
+            } catch (RuntimeException e) {
+                RuntimeException rejection = rejection(e);
+                throw rejection != null ? rejection : e;
+            }
+        }
+        invoice.setContentHash(xml.contentHash());
+        return invoice;
+    }
+
+    private InvoiceDto.InvoiceResponse process(byte[] xml, int length, String idempotencyKey) {
+        String contentHash = contentHash(xml, length);
+        Optional<Long> existing = findExisting(contentHash, idempotencyKey);
+        if (existing.isPresent()) {
+            return duplicate(existing.get());
+        }
+        return save(toInvoice(new ByteArrayInputStream(xml, 0, length)), contentHash, idempotencyKey);
+    }
+
+    private InvoiceDto.InvoiceResponse process(SpooledPayload payload, String idempotencyKey) throws IOException {
+        Optional<Long> existing = findExisting(payload.contentHash(), idempotencyKey);
+        if (existing.isPresent()) {
+            return duplicate(existing.get());
+        }
+        Invoice invoice;
+        try (InputStream xml = payload.openStream()) {
+            invoice = toInvoice(xml);
+        }
+        return save(invoice, payload.contentHash(), idempotencyKey);
+    }
+
+    /**
+     * Only an explicit idempotency key is worth a database lookup up front; content hashes are
+     * checked in memory and otherwise left to the unique index on insert.
+     */
+    private Optional<Long> findExisting(String contentHash, String idempotencyKey) {
+        Optional<Long> existing = deduplicator.findRecent(contentHash, idempotencyKey);
+        if (existing.isEmpty() && idempotencyKey != null) {
+            existing = deduplicator.findStored(null, idempotencyKey);
+        }
+        return existing;
+    }
+
+    private InvoiceDto.InvoiceResponse save(Invoice invoice, String contentHash, String idempotencyKey) {
+        invoice.setContentHash(contentHash);
+        invoice.setIdempotencyKey(idempotencyKey);
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.save(invoice);
+                outbox.invoiceSaved(invoice);
+                repo.flush();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // The same invoice was saved by another request in the meantime, or before it was
+            // cached; or a different one already uses its seller and number.
+            Optional<Long> stored = deduplicator.findStored(invoice);
+            if (stored.isPresent()) {
+                return duplicate(stored.get());
+            }
+            throw deduplicator.findConflicting(invoice)
+                    .<RuntimeException>map(id -> conflict(invoice, id))
+                    .orElse(e);
+        }
+        metrics.record(InvoiceMetrics.Stage.PERSIST, start);
+        metrics.saved();
+        deduplicator.remember(invoice);
+        sellerSummaries.invoiceSaved(invoice);
+        log.info("Successfully saved invoice with NIP: {}", invoice.getNip());
+
+        return new InvoiceDto.InvoiceResponse("Invoice saved successfully", invoice.getId());
+    }
+
+    private InvoiceDto.InvoiceResponse duplicate(Long id) {
+        metrics.duplicate();
+        log.info("Invoice already saved with id {}, skipping", id);
+        return new InvoiceDto.InvoiceResponse("Invoice already processed", id);
+    }
+
+    private static ConflictException conflict(Invoice invoice, Long id) {
+        return new ConflictException("Invoice " + invoice.getP2() + " of seller " + invoice.getNip()
+                + " is already stored with id " + id + " and different content");
+    }
+
+    private Invoice toInvoice(InputStream xml) {
+        InvoiceProperties.Validation validation = properties.getValidation();
+        InputStream document = xml;
+        if (validation.isPrevalidate()) {
+            long start = System.nanoTime();
+            document = xmlService.prevalidate(xml, validation.getMode() == InvoiceProperties.ValidationMode.STRICT);
+            metrics.record(InvoiceMetrics.Stage.PREVALIDATE, start);
+        }
+        InputStream prevalidated = document;
+        ExtractedFields fields = xmlLimiter.call(() -> extract(prevalidated));
+
+        log.debug("Extracted data: {}", fields);
+
+        Invoice invoice = new Invoice();
+        try {
+            invoice.setNip(InvoiceFields.normalizeNip(fields.get(XmlService.FIELD_NIP)));
+            invoice.setP1(InvoiceFields.parseIssueDate(fields.get(XmlService.FIELD_P1)));
+            invoice.setP2(fields.get(XmlService.FIELD_P2).strip());
+            String buyerNip = fields.get(XmlService.FIELD_BUYER_NIP);
+            invoice.setBuyerNip(buyerNip != null ? InvoiceFields.normalizeNip(buyerNip) : null);
+            String currency = fields.get(XmlService.FIELD_CURRENCY);
+            invoice.setCurrency(currency != null ? currency.strip() : null);
+            invoice.setNetTotal(sum(fields, XmlService.NET_TOTAL_FIELDS));
+            invoice.setVatTotal(sum(fields, XmlService.VAT_TOTAL_FIELDS));
+            invoice.setGrossTotal(InvoiceFields.parseDecimal(XmlService.FIELD_GROSS_TOTAL,
+                    fields.get(XmlService.FIELD_GROSS_TOTAL)));
+            for (ExtractedFields row : fields.rows(XmlService.GROUP_LINES)) {
+                invoice.addLine(toLine(row));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new XmlParsingException(e.getMessage(), e);
+        }
+        return invoice;
+    }
+
+    private static InvoiceLine toLine(ExtractedFields row) {
+        InvoiceLine line = new InvoiceLine();
+        line.setLineNumber(InvoiceFields.parseInteger("NrWierszaFa", row.get(XmlService.LINE_NUMBER)));
+        line.setName(row.get(XmlService.LINE_NAME));
+        line.setUnit(row.get(XmlService.LINE_UNIT));
+        line.setQuantity(InvoiceFields.parseDecimal("P_8B", row.get(XmlService.LINE_QUANTITY)));
+        line.setUnitNetPrice(InvoiceFields.parseDecimal("P_9A", row.get(XmlService.LINE_UNIT_NET_PRICE)));
+        line.setNetAmount(InvoiceFields.parseDecimal("P_11", row.get(XmlService.LINE_NET_AMOUNT)));
+        line.setGrossAmount(InvoiceFields.parseDecimal("P_11A", row.get(XmlService.LINE_GROSS_AMOUNT)));
+        String vatRate = row.get(XmlService.LINE_VAT_RATE);
+        line.setVatRate(vatRate != null ? vatRate.strip() : null);
+        return line;
+    }
+
+    private static BigDecimal sum(ExtractedFields fields, List<String> names) {
+        BigDecimal total = null;
+        for (String name : names) {
+            BigDecimal amount = InvoiceFields.parseDecimal(name, fields.get(name));
+            if (amount != null) {
+                total = total == null ? amount : total.add(amount);
+            }
+        }
+        return total;
+    }
+
+    private ExtractedFields extract(InputStream xml) {
+        if (properties.getExtraction().getMode() == InvoiceProperties.ExtractionMode.DOM) {
+            return extractWithDom(xml);
+        }
+        long start = System.nanoTime();
+        if (properties.getValidation().getMode() == InvoiceProperties.ValidationMode.OFF) {
+            ExtractedFields fields = xmlService.extractFields(xml);
+            metrics.record(InvoiceMetrics.Stage.EXTRACT, start);
+            return fields;
+        }
+        ExtractedFields fields = xmlService.validateAndExtract(xml, this::invalid);
+        metrics.record(InvoiceMetrics.Stage.VALIDATE_EXTRACT, start);
+        return fields;
+    }
+
+    private ExtractedFields extractWithDom(InputStream xml) {
+        long start = System.nanoTime();
+        Document document = xmlService.parseXml(xml);
+        metrics.record(InvoiceMetrics.Stage.PARSE, start);
+        log.debug("Successfully parsed XML document");
+
+        if (properties.getValidation().getMode() != InvoiceProperties.ValidationMode.OFF) {
+            start = System.nanoTime();
+            try {
+                xmlService.validateXml(document);
+                log.debug("XML validation successful");
+            } catch (XmlValidationException e) {
+                invalid(e);
+            }
+            metrics.record(InvoiceMetrics.Stage.VALIDATE, start);
+        }
+
+        start = System.nanoTime();
+        ExtractedFields fields = xmlService.extractFields(document);
+        metrics.record(InvoiceMetrics.Stage.EXTRACT, start);
+        return fields;
+    }
+
+    /**
+     * Strict mode rejects the invoice; lenient mode only counts the violation and carries on with
+     * extraction.
+     */
+    private void invalid(XmlValidationException e) {
+        if (properties.getValidation().getMode() == InvoiceProperties.ValidationMode.STRICT) {
+            throw e;
+        }
+        metrics.validationIgnored();
+        log.warn("XSD validation failed, proceeding without validation: {}", e.getMessage());
+    }
+
+    /**
+     * Reads a streamed body completely before any XML work, so a slow upload holds no
+     * {@link XmlConcurrencyLimiter} permit; the limiter only bounds the parsing of the spooled copy.
+     */
+    private SpooledPayload spool(InputStream xml) throws IOException {
+        long start = System.nanoTime();
+        InvoiceProperties.Payload limits = properties.getPayload();
+        try (SpoolingOutputStream spool = new SpoolingOutputStream(limits.getSpillThreshold().toBytes(),
+                limits.getMaxSize().toBytes(), Paths.get(limits.getSpillDirectory()))) {
+            xml.transferTo(spool);
+            SpooledPayload payload = spool.toPayload();
+            metrics.record(InvoiceMetrics.Stage.DECODE, start);
+            metrics.recordPayloadSize(payload.size());
+            return payload;
+        }
+    }
+
+    private SpooledPayload readJson(InputStream json) throws IOException {
+        long start = System.nanoTime();
+        InvoiceProperties.Payload limits = properties.getPayload();
+        try (JsonParser parser = JSON_FACTORY.createParser(json);
+             SpoolingOutputStream spool = new SpoolingOutputStream(limits.getSpillThreshold().toBytes(),
+                     limits.getMaxSize().toBytes(), Paths.get(limits.getSpillDirectory()))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new BadRequestException("Request body must be a JSON object");
+            }
+            boolean found = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (BASE64_XML_PROPERTY.equals(name) && value == JsonToken.VALUE_STRING) {
+                    try {
+                        parser.readBinaryValue(Base64Decoding.JSON, spool);
+                    } catch (JsonProcessingException | IllegalArgumentException e) {
+                        throw new Base64DecodingException("Invalid Base64 encoding provided", e);
+                    }
+                    found = spool.size() > 0;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!found) {
+                throw new BadRequestException("base64xml is required");
+            }
+            SpooledPayload payload = spool.toPayload();
+            metrics.record(InvoiceMetrics.Stage.DECODE, start);
+            metrics.recordPayloadSize(payload.size());
+            return payload;
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed JSON request: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Invalid invoices are reported as such, even when the XML parser wrapped the exception; only
+     * other failures become an {@link InvoiceProcessingException}.
+     */
+    private RuntimeException failed(Exception e) {
+        RuntimeException rejection = rejection(e);
+        if (rejection != null) {
+            return rejection;
+        }
+        metrics.failed();
+        log.error("Failed to process invoice: {}", e.getMessage(), e);
+        return new InvoiceProcessingException("Failed to process invoice: " + e.getMessage(), e);
+    }
+
+    /**
+     * Finds the cause that makes the invoice itself invalid, counts it by reason and returns it;
+     * null if the failure is not the invoice's fault.
+     */
+    private RuntimeException rejection(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String reason = switch (cause) {
+                case PrevalidationException prevalidation -> prevalidation.getReason();
+                case PayloadTooLargeException tooLarge -> "size";
+                case Base64DecodingException base64 -> "base64";
+                case XmlValidationException validation -> "schema";
+                case XmlParsingException parsing -> "parse";
+                case BadRequestException badRequest -> "request";
+                case ConflictException conflict -> "conflict";
+                default -> null;
+            };
+            if (reason != null) {
+                metrics.rejected(reason);
+                log.info("Rejected invoice ({}): {}", reason, cause.getMessage());
+                return (RuntimeException) cause;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * With prevalidation on, checks the Base64 text and the decoded size before a buffer is taken
+     * or anything is decoded. Returns the buffer size needed to decode it.
+     */
+    private int decodeBufferSize(String base64Xml) {
+        if (!properties.getValidation().isPrevalidate()) {
+            return Base64Decoding.maxDecodedLength(base64Xml.length());
+        }
+        long start = System.nanoTime();
+        int length = Base64Decoding.decodedLength(base64Xml);
+        long maxSize = properties.getPayload().getMaxSize().toBytes();
+        if (length > maxSize) {
+            throw new PayloadTooLargeException("Invoice of " + length + " bytes exceeds the maximum of " + maxSize + " bytes");
+        }
+        metrics.record(InvoiceMetrics.Stage.PREVALIDATE, start);
+        return length;
+    }
+
+    /**
+     * Decodes into {@code buffer} and returns the length; the bytes go to the parser as they are,
+     * so the XML declaration decides the charset.
+     */
+    private int decode(String base64Xml, byte[] buffer) {
+        long start = System.nanoTime();
+        int length = xmlService.decodeBase64(base64Xml, buffer);
+        metrics.record(InvoiceMetrics.Stage.DECODE, start);
+        metrics.recordPayloadSize(length);
+        return length;
+    }
+
+    private static String contentHash(byte[] xml, int length) {
+        MessageDigest digest = sha256();
+        digest.update(xml, 0, length);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 }
@@ -0,0 +1,341 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.SchemaDto;
+import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Service.SchemaRegistry;
+import com.invoice.invoice.Xml.BoundedPool;
+import com.invoice.invoice.Xml.XmlParsers;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaRegistryImpl implements SchemaRegistry {
+
+    private final InvoiceProperties properties;
+    private final ResourcePatternResolver resourceResolver;
+    private final XmlParsers parsers;
+
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final AtomicLong reloads = new AtomicLong();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Immutable snapshot read by validation; a reload builds the next one aside and swaps it in.
+    private volatile Map<String, SchemaEntry> entries = Map.of();
+
+    // Guarded by reloadLock: the two sources of the snapshot, and the files the overrides came from.
+    private Map<String, SchemaEntry> bundled = Map.of();
+    private Map<String, SchemaEntry> overrides = Map.of();
+    private Map<Path, FileStamp> directoryFiles;
+
+    @PostConstruct
+    void init() {
+        reloadLock.lock();
+        try {
+            bundled = scanBundledSchemas();
+            reloadDirectory(true);
+            publish();
+        } finally {
+            reloadLock.unlock();
+        }
+        if (properties.getSchema().isEager()) {
+            entries.values().forEach(this::compileQuietly);
+        }
+        log.info("Schema registry initialized with namespaces: {}", entries.keySet());
+    }
+
+    @Override
+    public Optional<ValidatorLease> borrowValidator(String namespace) {
+        SchemaEntry entry = namespace != null ? entries.get(namespace) : null;
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.compile();
+        hits.computeIfAbsent(entry.namespace, ns -> new LongAdder()).increment();
+        return Optional.of(new PooledValidatorLease(entry, entry.validators.borrow()));
+    }
+
+    @Override
+    public boolean isRegistered(String namespace) {
+        return namespace != null && entries.containsKey(namespace);
+    }
+
+    @Override
+    public void reload() {
+        reloadLock.lock();
+        try {
+            Map<String, SchemaEntry> scanned = scanBundledSchemas();
+            scanned.values().forEach(this::compileQuietly);
+            bundled = scanned;
+            directoryFiles = null;
+            reloadDirectory(false);
+            publish();
+            reloads.incrementAndGet();
+            log.info("Schema registry reloaded with namespaces: {}", entries.keySet());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invoice.schema.reload-interval:PT30S}")
+    void reloadChangedSchemas() {
+        if (!StringUtils.hasText(properties.getSchema().getReloadDirectory())) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            if (reloadDirectory(false)) {
+                publish();
+                reloads.incrementAndGet();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Override
+    public List<SchemaDto.SchemaStatistics> getStatistics() {
+        return entries.values().stream()
+                .sorted(Comparator.comparing(e -> e.namespace))
+                .map(e -> SchemaDto.SchemaStatistics.builder()
+                        .namespace(e.namespace)
+                        .location(e.location)
+                        .compiled(e.schema != null)
+                        .compileTimeMillis(TimeUnit.NANOSECONDS.toMillis(e.compileNanos))
+                        .compiledAt(e.compiledAt)
+                        .hits(hits.getOrDefault(e.namespace, new LongAdder()).sum())
+                        .reloads(reloads.get())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Swaps in the bundled schemas overlaid with the directory ones as one new snapshot, so a
+     * reader sees either the old set or the new one and never a namespace missing in between.
+     */
+    private void publish() {
+        Map<String, SchemaEntry> next = new HashMap<>(bundled);
+        next.putAll(overrides);
+        entries = Map.copyOf(next);
+    }
+
+    private Map<String, SchemaEntry> scanBundledSchemas() {
+        Map<String, SchemaEntry> scanned = new HashMap<>();
+        try {
+            for (Resource resource : resourceResolver.getResources(properties.getSchema().getLocations())) {
+                SchemaEntry entry = describe(resource.getURL());
+                if (entry != null) {
+                    scanned.putIfAbsent(entry.namespace, entry);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan schema locations {}: {}", properties.getSchema().getLocations(), e.getMessage());
+        }
+        return scanned;
+    }
+
+    /**
+     * Re-reads the schemas of the reload directory when a file in it was added, removed or
+     * changed, and returns whether the overrides changed. Imports and includes between the files
+     * are resolved relative to each other, so the whole directory is recompiled together. The
+     * previous schemas stay in place if the new ones fail to compile.
+     */
+    private boolean reloadDirectory(boolean initial) {
+        String directory = properties.getSchema().getReloadDirectory();
+        if (!StringUtils.hasText(directory)) {
+            return false;
+        }
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            log.warn("Schema reload directory {} does not exist", dir);
+            return false;
+        }
+
+        Map<Path, FileStamp> files = new HashMap<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.filter(p -> p.getFileName().toString().endsWith(".xsd"))
+                    .forEach(file -> files.put(file, stamp(file)));
+        } catch (IOException e) {
+            log.warn("Failed to list schema directory {}: {}", dir, e.getMessage());
+            return false;
+        }
+        if (files.equals(directoryFiles)) {
+            return false;
+        }
+
+        Map<String, SchemaEntry> candidates = new HashMap<>();
+        for (Path file : files.keySet().stream().sorted().toList()) {
+            try {
+                SchemaEntry entry = describe(file.toUri().toURL());
+                if (entry != null) {
+                    if (!initial) {
+                        entry.compile();
+                    }
+                    candidates.put(entry.namespace, entry);
+                }
+            } catch (Exception e) {
+                log.error("Schema {} could not be reloaded, keeping the previous version: {}", file, e.getMessage());
+                return false;
+            }
+        }
+
+        overrides = candidates;
+        directoryFiles = files;
+        log.info("Registered {} schema(s) from {}", candidates.size(), dir);
+        return true;
+    }
+
+    private SchemaEntry describe(URL location) {
+        String namespace = readTargetNamespace(location);
+        if (namespace == null) {
+            log.debug("Skipping schema {} without target namespace", location);
+            return null;
+        }
+        return new SchemaEntry(namespace, location.toExternalForm(), parsers);
+    }
+
+    private String readTargetNamespace(URL location) {
+        try (InputStream in = location.openStream()) {
+            XMLStreamReader reader = parsers.inputFactory().createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        return reader.getAttributeValue(null, "targetNamespace");
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            log.warn("Failed to read target namespace of schema {}: {}", location, e.getMessage());
+            return null;
+        }
+    }
+
+    private static FileStamp stamp(Path file) {
+        try {
+            return new FileStamp(Files.getLastModifiedTime(file).toMillis(), Files.size(file));
+        } catch (IOException e) {
+            return new FileStamp(0L, -1L);
+        }
+    }
+
+    private void compileQuietly(SchemaEntry entry) {
+        try {
+            entry.compile();
+        } catch (XmlValidationException e) {
+            log.error("Failed to compile schema {}: {}", entry.location, e.getMessage());
+        }
+    }
+
+    private record FileStamp(long lastModified, long size) {
+    }
+
+    /**
+     * Validators are not thread-safe, so each one is leased to a single caller at a time. They are
+     * pooled per compiled schema rather than per thread, which also keeps reuse working when
+     * requests run on short-lived virtual threads; a reload simply drops the old entry's pool.
+     */
+    private static final class PooledValidatorLease implements ValidatorLease {
+        private final SchemaEntry entry;
+        private Validator validator;
+
+        private PooledValidatorLease(SchemaEntry entry, Validator validator) {
+            this.entry = entry;
+            this.validator = validator;
+        }
+
+        @Override
+        public Validator validator() {
+            return validator;
+        }
+
+        @Override
+        public void close() {
+            if (validator == null) {
+                return;
+            }
+            validator.reset();
+            entry.validators.release(validator);
+            validator = null;
+        }
+    }
+
+    private static final class SchemaEntry {
+        private final String namespace;
+        private final String location;
+        private final XmlParsers parsers;
+        private final ReentrantLock compileLock = new ReentrantLock();
+        private final BoundedPool<Validator> validators =
+                new BoundedPool<>(BoundedPool.DEFAULT_CAPACITY, () -> compile().newValidator());
+
+        private volatile Schema schema;
+        private volatile long compileNanos;
+        private volatile LocalDateTime compiledAt;
+
+        private SchemaEntry(String namespace, String location, XmlParsers parsers) {
+            this.namespace = namespace;
+            this.location = location;
+            this.parsers = parsers;
+        }
+
+        private Schema compile() {
+            Schema compiled = schema;
+            if (compiled != null) {
+                return compiled;
+            }
+            compileLock.lock();
+            try {
+                if (schema == null) {
+                    long start = System.nanoTime();
+                    // SchemaFactory is not thread-safe, but compiling is rare enough to create one each time.
+                    schema = parsers.newSchemaFactory().newSchema(new StreamSource(location));
+                    compileNanos = System.nanoTime() - start;
+                    compiledAt = LocalDateTime.now();
+                    log.info("Compiled schema {} for namespace {} in {} ms",
+                            location, namespace, TimeUnit.NANOSECONDS.toMillis(compileNanos));
+                }
+                return schema;
+            } catch (SAXException e) {
+                throw new XmlValidationException("Failed to compile schema " + location, e);
+            } finally {
+                compileLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.invoice.invoice.Cache.CacheInvalidationChannel;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.SellerSummaryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class SellerSummaryServiceImpl implements SellerSummaryService {
+
+    static final String CACHE_NAME = "sellerSummaries";
+
+    private final InvoiceRepository repo;
+    private final CacheInvalidationChannel invalidationChannel;
+    private final int recentInvoices;
+    private final LoadingCache<String, InvoiceDto.SellerSummary> cache;
+
+    public SellerSummaryServiceImpl(InvoiceRepository repo,
+                                    CacheInvalidationChannel invalidationChannel,
+                                    InvoiceProperties properties,
+                                    MeterRegistry meterRegistry) {
+        InvoiceProperties.Cache config = properties.getCache();
+        this.repo = repo;
+        this.invalidationChannel = invalidationChannel;
+        this.recentInvoices = config.getRecentInvoices();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getSellerSummaryMaximumSize())
+                .expireAfterWrite(config.getSellerSummaryTtl())
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        invalidationChannel.subscribe(CACHE_NAME, cache::invalidate, cache::invalidateAll);
+    }
+
+    @Override
+    public InvoiceDto.SellerSummary getSummary(String nip) {
+        return cache.get(nip);
+    }
+
+    @Override
+    public void invoiceSaved(Invoice invoice) {
+        cache.asMap().computeIfPresent(invoice.getNip(), (nip, summary) -> withInvoice(summary, invoice));
+        invalidationChannel.publish(CACHE_NAME, invoice.getNip());
+    }
+
+    @Override
+    public void invoicesSaved(List<Invoice> invoices) {
+        Set<String> sellers = new LinkedHashSet<>();
+        for (Invoice invoice : invoices) {
+            cache.asMap().computeIfPresent(invoice.getNip(), (nip, summary) -> withInvoice(summary, invoice));
+            sellers.add(invoice.getNip());
+        }
+        // A batch usually holds many invoices of few sellers; each publish is a database round trip.
+        sellers.forEach(nip -> invalidationChannel.publish(CACHE_NAME, nip));
+    }
+
+    private InvoiceDto.SellerSummary load(String nip) {
+        log.debug("Loading seller summary for NIP {}", nip);
+        return InvoiceDto.SellerSummary.builder()
+                .nip(nip)
+                .invoiceCount(repo.countByNip(nip))
+                .latestInvoices(repo.latest(nip, recentInvoices))
+                .build();
+    }
+
+    /**
+     * A summary loaded after the invoice was committed already contains it as its newest entry,
+     * in which case it is left as it is rather than counted twice.
+     */
+    private InvoiceDto.SellerSummary withInvoice(InvoiceDto.SellerSummary summary, Invoice invoice) {
+        List<InvoiceDto.InvoiceSummary> latest = summary.getLatestInvoices();
+        if (latest.stream().anyMatch(item -> item.getId().equals(invoice.getId()))) {
+            return summary;
+        }
+        List<InvoiceDto.InvoiceSummary> updated = new ArrayList<>(Math.min(latest.size() + 1, recentInvoices));
+        updated.add(InvoiceDto.InvoiceSummary.builder()
+                .id(invoice.getId())
+                .nip(invoice.getNip())
+                .p1(invoice.getP1())
+                .p2(invoice.getP2())
+                .createdAt(invoice.getCreatedAt())
+                .build());
+        updated.addAll(latest.subList(0, Math.min(latest.size(), recentInvoices - 1)));
+        return summary.toBuilder()
+                .invoiceCount(summary.getInvoiceCount() + 1)
+                .latestInvoices(List.copyOf(updated))
+                .build();
+    }
+}
@@ -1,95 +1,310 @@
 package com.invoice.invoice.Service.Impl;
 
 
-import com.invoice.invoice.Exception.Base64DecodingException;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.PrevalidationException;
 import com.invoice.invoice.Exception.XmlParsingException;
 import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Io.Base64Decoding;
+import com.invoice.invoice.Service.SchemaRegistry;
 import com.invoice.invoice.Service.XmlService;
+import com.invoice.invoice.Xml.DomFieldExtractor;
+import com.invoice.invoice.Xml.ExtractedFields;
+import com.invoice.invoice.Xml.ExtractingStreamReader;
+import com.invoice.invoice.Xml.ExtractionPlan;
+import com.invoice.invoice.Xml.ExtractionSession;
+import com.invoice.invoice.Xml.StaxFieldExtractor;
+import com.invoice.invoice.Xml.XmlParsers;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.transform.stax.StAXSource;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
+@Slf4j
 public class XmlServiceImpl implements XmlService {
 
     private static final String NAMESPACE_URI = "http://crd.gov.pl/wzor/2023/06/29/12648/";
+    private static final String ROOT_ELEMENT = "Faktura";
+    private static final int SNIFF_SIZE = 4096;
+
+    // FA(2) is a fixed sequence: nothing optional that is extracted can follow the end of Fa.
+    private static final String FA_SCOPE = "Faktura/Fa";
+
+    private static final NamespaceContext FA_NAMESPACES = new NamespaceContext() {
+        @Override
+        public String getNamespaceURI(String prefix) {
+            if ("fa".equals(prefix)) {
+                return NAMESPACE_URI;
+            }
+            return null;
+        }
+
+        @Override
+        public String getPrefix(String uri) {
+            return null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String uri) {
+            return null;
+        }
+    };
+
+    private final SchemaRegistry schemaRegistry;
+    private final XmlParsers parsers;
+    private final XMLInputFactory inputFactory;
+    private final XmlParsers.CompiledXPath sellerNipXPath;
+    private final ExtractionPlan plan;
+    private final ExtractionPlan domPlan;
+    private final boolean requireSchema;
+
+    public XmlServiceImpl(SchemaRegistry schemaRegistry, InvoiceProperties properties, XmlParsers parsers) {
+        this.schemaRegistry = schemaRegistry;
+        this.requireSchema = properties.getValidation().getMode() == InvoiceProperties.ValidationMode.STRICT;
+        if (requireSchema && !schemaRegistry.isRegistered(NAMESPACE_URI)) {
+            // Strict mode would reject every invoice; better not to start at all.
+            throw new IllegalStateException("invoice.validation.mode is strict, but no schema is registered for "
+                    + NAMESPACE_URI + "; add it to invoice.schema.locations or use lenient mode");
+        }
+        this.parsers = parsers;
+        this.inputFactory = parsers.inputFactory();
+        this.sellerNipXPath = parsers.compile("//fa:Podmiot1/fa:DaneIdentyfikacyjne/fa:NIP", FA_NAMESPACES);
+
+        // Every field is declared once and extracted in the same pass; the DOM mode keeps its
+        // dedicated lookups for NIP, P_1 and P_2 and walks the tree once for the rest.
+        ExtractionPlan.Builder builder = ExtractionPlan.builder(NAMESPACE_URI)
+                .field(FIELD_NIP, "Podmiot1/DaneIdentyfikacyjne/NIP", "NIP")
+                .field(FIELD_P1, "P_1")
+                .field(FIELD_P2, "P_2");
+        ExtractionPlan.Builder domBuilder = ExtractionPlan.builder(NAMESPACE_URI);
+        declareDetails(builder);
+        declareDetails(domBuilder);
+        Map<String, List<String>> extraFields = properties.getExtraction().getFields();
+        extraFields.forEach(builder::field);
+        extraFields.forEach(domBuilder::field);
+        this.plan = builder.build();
+        this.domPlan = domBuilder.build();
+    }
+
+    private static void declareDetails(ExtractionPlan.Builder builder) {
+        builder.optionalField(FA_SCOPE, FIELD_BUYER_NIP, "Podmiot2/DaneIdentyfikacyjne/NIP")
+                .optionalField(FA_SCOPE, FIELD_CURRENCY, "Fa/KodWaluty");
+        for (String field : NET_TOTAL_FIELDS) {
+            builder.optionalField(FA_SCOPE, field, "Fa/" + field);
+        }
+        for (String field : VAT_TOTAL_FIELDS) {
+            builder.optionalField(FA_SCOPE, field, "Fa/" + field);
+        }
+        builder.optionalField(FA_SCOPE, FIELD_GROSS_TOTAL, "Fa/" + FIELD_GROSS_TOTAL);
+        builder.group(GROUP_LINES, "Fa/FaWiersz", FA_SCOPE, ExtractionPlan.builder(NAMESPACE_URI)
+                .field(LINE_NUMBER, "NrWierszaFa")
+                .field(LINE_NAME, "P_7")
+                .field(LINE_UNIT, "P_8A")
+                .field(LINE_QUANTITY, "P_8B")
+                .field(LINE_UNIT_NET_PRICE, "P_9A")
+                .field(LINE_NET_AMOUNT, "P_11")
+                .field(LINE_GROSS_AMOUNT, "P_11A")
+                .field(LINE_VAT_RATE, "P_12")
+                .build());
+    }
 
     @Override
-    public String decodeBase64(String base64Xml) {
+    public ExtractedFields extractFields(InputStream xml) {
+        XMLStreamReader reader = null;
         try {
-            byte[] decodedBytes = Base64.getDecoder().decode(base64Xml);
-            return new String(decodedBytes);
-        } catch (IllegalArgumentException e) {
-            throw new Base64DecodingException("Invalid Base64 encoding provided", e);
+            reader = inputFactory.createXMLStreamReader(xml);
+            ExtractedFields fields = StaxFieldExtractor.extract(plan, reader);
+            requireBuiltInFields(fields);
+            return fields;
+        } catch (XMLStreamException e) {
+            throw new XmlParsingException("Failed to parse XML content", e);
+        } finally {
+            closeQuietly(reader);
         }
     }
 
     @Override
-    public Document parseXml(String xmlContent) {
+    public ExtractedFields extractFields(Document document) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(FIELD_NIP, extractNip(document));
+        values.put(FIELD_P1, extractP1(document));
+        values.put(FIELD_P2, extractP2(document));
+        ExtractedFields details = DomFieldExtractor.extract(domPlan, document);
+        values.putAll(details.asMap());
+        return ExtractedFields.of(values, details.groupsAsMap());
+    }
+
+    @Override
+    public ExtractedFields validateAndExtract(InputStream xml, Consumer<XmlValidationException> onInvalid) {
+        XMLStreamReader reader = null;
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            return builder.parse(new ByteArrayInputStream(xmlContent.getBytes()));
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            reader = inputFactory.createXMLStreamReader(xml);
+            reader.nextTag();
+            String namespace = reader.getNamespaceURI();
+            ExtractionSession session = plan.newSession();
+
+            Optional<SchemaRegistry.ValidatorLease> lease = schemaRegistry.borrowValidator(namespace);
+            if (lease.isPresent()) {
+                try (SchemaRegistry.ValidatorLease validator = lease.get()) {
+                    validator.validator().validate(new StAXSource(new ExtractingStreamReader(reader, session)));
+                } catch (SAXException | IOException e) {
+                    onInvalid.accept(new XmlValidationException("XML validation against schema failed", e));
+                }
+            } else {
+                missingSchema(namespace);
+            }
+
+            // Without a validator, or after a validation error, extraction continues from where the
+            // reader stopped; after a successful validation the document is already fully read.
+            StaxFieldExtractor.drain(session, reader);
+            ExtractedFields fields = session.result();
+            requireBuiltInFields(fields);
+            return fields;
+        } catch (XMLStreamException e) {
             throw new XmlParsingException("Failed to parse XML content", e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    @Override
+    public InputStream prevalidate(InputStream xml, boolean requireSchema) {
+        InputStream in = xml.markSupported() ? xml : new BufferedInputStream(xml, SNIFF_SIZE);
+        byte[] head;
+        try {
+            in.mark(SNIFF_SIZE);
+            head = in.readNBytes(SNIFF_SIZE);
+            in.reset();
+        } catch (IOException e) {
+            throw new XmlParsingException("Failed to read XML content", e);
+        }
+
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(head));
+            reader.nextTag();
+            if (!ROOT_ELEMENT.equals(reader.getLocalName())) {
+                throw new PrevalidationException("root_element",
+                        "Expected a " + ROOT_ELEMENT + " document but the root element is " + reader.getLocalName());
+            }
+            if (!NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+                throw new PrevalidationException("namespace", "Unsupported invoice namespace " + reader.getNamespaceURI());
+            }
+        } catch (XMLStreamException e) {
+            throw new PrevalidationException("malformed", head.length < SNIFF_SIZE
+                    ? "Not an XML document: " + e.getMessage()
+                    : "No XML root element within the first " + SNIFF_SIZE + " bytes: " + e.getMessage());
+        } finally {
+            closeQuietly(reader);
+        }
+
+        if (requireSchema && !schemaRegistry.isRegistered(NAMESPACE_URI)) {
+            throw new PrevalidationException("namespace", "No schema registered for namespace " + NAMESPACE_URI);
         }
+        return in;
+    }
+
+    @Override
+    public byte[] decodeBase64(String base64Xml) {
+        byte[] decoded = new byte[Base64Decoding.maxDecodedLength(base64Xml.length())];
+        int length = decodeBase64(base64Xml, decoded);
+        return length == decoded.length ? decoded : Arrays.copyOf(decoded, length);
+    }
+
+    @Override
+    public int decodeBase64(String base64Xml, byte[] target) {
+        return Base64Decoding.decode(base64Xml, target);
+    }
+
+    @Override
+    public InputStream decodeBase64(InputStream base64Xml) {
+        return Base64Decoding.wrap(base64Xml);
     }
 
     @Override
-    public void validateXml(Document document, InputStream xsdStream) {
+    public Document parseXml(InputStream xml) {
         try {
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = schemaFactory.newSchema(new StreamSource(xsdStream));
-            Validator validator = schema.newValidator();
+            return parsers.parse(xml);
+        } catch (SAXException | IOException e) {
+            throw new XmlParsingException("Failed to parse XML content", e);
+        }
+    }
+
+    @Override
+    public void validateXml(Document document) {
+        String namespace = document.getDocumentElement().getNamespaceURI();
+        Optional<SchemaRegistry.ValidatorLease> lease = schemaRegistry.borrowValidator(namespace);
+        if (lease.isEmpty()) {
+            missingSchema(namespace);
+            return;
+        }
+        try (SchemaRegistry.ValidatorLease validator = lease.get()) {
             Source source = new DOMSource(document);
-            validator.validate(source);
+            validator.validator().validate(source);
         } catch (SAXException | IOException e) {
             throw new XmlValidationException("XML validation against schema failed", e);
         }
     }
 
     @Override
-    public String extractNip(Document document) {
+    public void validateXml(InputStream xml) {
+        XMLStreamReader reader = null;
         try {
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            xpath.setNamespaceContext(new javax.xml.namespace.NamespaceContext() {
-                public String getNamespaceURI(String prefix) {
-                    if ("fa".equals(prefix)) {
-                        return NAMESPACE_URI;
-                    }
-                    return null;
-                }
-                public String getPrefix(String uri) {
-                    return null;
-                }
-                public Iterator<String> getPrefixes(String uri) {
-                    return null;
-                }
-            });
+            reader = inputFactory.createXMLStreamReader(xml);
+            reader.nextTag();
+            String namespace = reader.getNamespaceURI();
+            Optional<SchemaRegistry.ValidatorLease> lease = schemaRegistry.borrowValidator(namespace);
+            if (lease.isEmpty()) {
+                missingSchema(namespace);
+                return;
+            }
+            try (SchemaRegistry.ValidatorLease validator = lease.get()) {
+                validator.validator().validate(new StAXSource(reader));
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlParsingException("Failed to parse XML content", e);
+        } catch (SAXException | IOException e) {
+            throw new XmlValidationException("XML validation against schema failed", e);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Strict mode rejects documents it cannot validate; otherwise validation is skipped.
+     */
+    private void missingSchema(String namespace) {
+        if (requireSchema) {
+            throw new XmlValidationException("No schema registered for namespace " + namespace);
+        }
+        log.warn("No schema registered for namespace {}, skipping validation", namespace);
+    }
 
-            String expression = "//fa:Podmiot1/fa:DaneIdentyfikacyjne/fa:NIP";
-            Node nipNode = (Node) xpath.evaluate(expression, document, XPathConstants.NODE);
+    @Override
+    public String extractNip(Document document) {
+        try {
+            Node nipNode = sellerNipXPath.evaluateNode(document);
 
             if (nipNode != null) {
                 return nipNode.getTextContent();
@@ -137,4 +352,26 @@ public class XmlServiceImpl implements XmlService {
             throw new XmlParsingException("Failed to extract P_2 from XML", e);
         }
     }
+
+    private void requireBuiltInFields(ExtractedFields fields) {
+        if (fields.get(FIELD_NIP) == null) {
+            throw new XmlParsingException("NIP element not found in the provided XML");
+        }
+        if (fields.get(FIELD_P1) == null) {
+            throw new XmlParsingException("P_1 element not found in the provided XML");
+        }
+        if (fields.get(FIELD_P2) == null) {
+            throw new XmlParsingException("P_2 element not found in the provided XML");
+        }
+    }
+
+    private static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                log.debug("Failed to close XML stream reader: {}", e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.io.InputStream;
+
+public interface InvoiceBatchService {
+
+    /**
+     * Processes a JSON array or NDJSON stream of {@link InvoiceDto.InvoiceRequest} items. Items are
+     * read and parsed chunk by chunk and each chunk is written in one batched transaction; a failing
+     * item is reported in its result without rolling back the others.
+     */
+    InvoiceDto.BatchResponse processBatch(InputStream body);
+}
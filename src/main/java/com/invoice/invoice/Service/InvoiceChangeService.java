@@ -0,0 +1,25 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+
+public interface InvoiceChangeService {
+
+    /**
+     * Up to {@code limit} published changes after position {@code since}, in feed order.
+     */
+    InvoiceDto.ChangePage getChanges(long since, int limit);
+
+    /**
+     * Like {@link #getChanges}, but when nothing follows {@code since} yet the request is held
+     * for up to {@code wait} and answered as soon as new changes are published.
+     */
+    DeferredResult<InvoiceDto.ChangePage> awaitChanges(long since, int limit, Duration wait);
+
+    /**
+     * Answers the held requests that new changes can now be read for. Called after every relay run.
+     */
+    void poll();
+}
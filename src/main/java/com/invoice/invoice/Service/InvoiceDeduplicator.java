@@ -0,0 +1,35 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Entity.Invoice;
+
+import java.util.Optional;
+
+public interface InvoiceDeduplicator {
+
+    /**
+     * Id of a recently saved invoice with the given content hash or idempotency key, answered from
+     * memory only. Either argument may be {@code null}.
+     */
+    Optional<Long> findRecent(String contentHash, String idempotencyKey);
+
+    /**
+     * Same lookup against the database, for keys that fell out of the cache or after an insert
+     * was rejected by the unique indexes.
+     */
+    Optional<Long> findStored(String contentHash, String idempotencyKey);
+
+    /**
+     * Database lookup for an invoice whose insert was rejected, by its idempotency key and content
+     * hash. Only these make it a duplicate of the stored invoice.
+     */
+    Optional<Long> findStored(Invoice invoice);
+
+    /**
+     * Id of a stored invoice with the same seller NIP and invoice number (P_2), which are unique
+     * together. Checked after {@link #findStored(Invoice)} found nothing, so it is a different
+     * invoice reusing the number.
+     */
+    Optional<Long> findConflicting(Invoice invoice);
+
+    void remember(Invoice invoice);
+}
@@ -0,0 +1,15 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface InvoiceExportService {
+
+    /**
+     * Writes every invoice matching the filter to {@code out} while it is read from the database,
+     * so memory use does not depend on the number of rows. Does not close {@code out}.
+     */
+    void export(InvoiceDto.InvoiceFilter filter, InvoiceDto.ExportFormat format, OutputStream out) throws IOException;
+}
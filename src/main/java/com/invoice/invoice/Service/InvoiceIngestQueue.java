@@ -0,0 +1,17 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface InvoiceIngestQueue {
+
+    /**
+     * Journals the payload and queues it for background processing after a cheap size and Base64
+     * check. Returns as soon as the payload is on disk; fails fast when the queue is full.
+     */
+    InvoiceDto.TicketResponse submit(String base64Xml);
+
+    Optional<InvoiceDto.TicketResponse> status(UUID ticket);
+}
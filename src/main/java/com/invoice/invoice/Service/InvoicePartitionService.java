@@ -0,0 +1,19 @@
+package com.invoice.invoice.Service;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface InvoicePartitionService {
+
+    /**
+     * Creates the monthly partitions of the invoices table up to {@code invoice.partitions.create-ahead}
+     * months ahead that do not exist yet. Returns the names of the new partitions.
+     */
+    List<String> createUpcomingPartitions();
+
+    /**
+     * Writes every partition older than {@code invoice.partitions.retention} to compressed CSV files,
+     * together with its lines, then detaches and drops it. Returns the archive files written.
+     */
+    List<Path> archiveExpiredPartitions();
+}
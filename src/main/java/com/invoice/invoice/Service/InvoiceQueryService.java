@@ -0,0 +1,12 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+
+public interface InvoiceQueryService {
+
+    /**
+     * One page of invoices matching the filter in creation order. {@code cursor} is the
+     * {@code nextCursor} of the previous page, or {@code null} for the first one.
+     */
+    InvoiceDto.InvoicePage search(InvoiceDto.InvoiceFilter filter, String cursor, int limit);
+}
@@ -1,12 +1,49 @@
 package com.invoice.invoice.Service;
 
 import com.invoice.invoice.Dto.InvoiceDto;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.RequestBody;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Io.SpooledPayload;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 public interface InvoiceService {
 
     InvoiceDto.InvoiceResponse processInvoice(String base64Xml);
 
+    /**
+     * Same as {@link #processInvoice(String)}; an invoice whose content or idempotency key was
+     * already saved is not parsed or stored again, the existing id is returned instead.
+     */
+    InvoiceDto.InvoiceResponse processInvoice(String base64Xml, String idempotencyKey);
+
+    /**
+     * Reads an {@code {"base64xml": "..."}} request body and decodes the Base64 while it is
+     * parsed, so the encoded text never exists as one string. Invoices above the spill threshold
+     * are decoded into a temporary file and parsed from there.
+     */
+    InvoiceDto.InvoiceResponse processInvoiceJson(InputStream json, String idempotencyKey);
+
+    InvoiceDto.InvoiceResponse processInvoiceStream(InputStream base64Xml);
+
+    InvoiceDto.InvoiceResponse processInvoiceStream(InputStream base64Xml, String idempotencyKey);
+
     InvoiceDto.InvoiceResponse processXmlInvoice(String xmlContent);
+
+    /**
+     * Validates and extracts a raw XML invoice, without a Base64 step. The stream is read to the
+     * end first, so parsing does not wait on the client. It must already be decompressed.
+     */
+    InvoiceDto.InvoiceResponse processXmlStream(InputStream xml, String idempotencyKey);
+
+    /**
+     * Decodes, validates and extracts a Base64 invoice into a new, unsaved {@link Invoice}. If the
+     * same content was saved recently, the returned invoice only carries the existing id and hash.
+     */
+    Invoice parseInvoice(String base64Xml);
+
+    /**
+     * Same as {@link #parseInvoice(String)} for an invoice XML that is already decoded.
+     */
+    Invoice parseInvoice(SpooledPayload xml) throws IOException;
 }
@@ -0,0 +1,34 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.SchemaDto;
+
+import javax.xml.validation.Validator;
+import java.util.List;
+import java.util.Optional;
+
+public interface SchemaRegistry {
+
+    /**
+     * Borrows a reset validator for the schema registered under the given target namespace,
+     * compiling the schema on first use. The validator must only be used by the caller until the
+     * lease is closed, which hands it back to the pool.
+     */
+    Optional<ValidatorLease> borrowValidator(String namespace);
+
+    /**
+     * Whether a schema is registered for the target namespace, without compiling it.
+     */
+    boolean isRegistered(String namespace);
+
+    void reload();
+
+    List<SchemaDto.SchemaStatistics> getStatistics();
+
+    interface ValidatorLease extends AutoCloseable {
+
+        Validator validator();
+
+        @Override
+        void close();
+    }
+}
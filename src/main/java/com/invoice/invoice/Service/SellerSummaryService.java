@@ -0,0 +1,26 @@
+package com.invoice.invoice.Service;
+
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+
+import java.util.List;
+
+public interface SellerSummaryService {
+
+    /**
+     * Invoice count and latest invoices of one seller, served from a read-through cache.
+     */
+    InvoiceDto.SellerSummary getSummary(String nip);
+
+    /**
+     * Folds a newly saved invoice into the cached summary of its seller, if there is one, and
+     * invalidates it on the other instances.
+     */
+    void invoiceSaved(Invoice invoice);
+
+    /**
+     * Same as {@link #invoiceSaved} for the invoices of one batch, with one invalidation per
+     * seller rather than per invoice.
+     */
+    void invoicesSaved(List<Invoice> invoices);
+}
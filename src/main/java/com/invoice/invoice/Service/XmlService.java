@@ -1,20 +1,88 @@
 package com.invoice.invoice.Service;
 
+import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Xml.ExtractedFields;
 import org.w3c.dom.Document;
 
 import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface XmlService {
 
+    String FIELD_NIP = "nip";
+    String FIELD_P1 = "p1";
+    String FIELD_P2 = "p2";
+    String FIELD_BUYER_NIP = "buyerNip";
+    String FIELD_CURRENCY = "currency";
+    String FIELD_GROSS_TOTAL = "P_15";
+
+    /**
+     * Net amounts per VAT rate (P_13_x), summed into the invoice net total.
+     */
+    List<String> NET_TOTAL_FIELDS = List.of("P_13_1", "P_13_2", "P_13_3", "P_13_4", "P_13_5",
+            "P_13_6_1", "P_13_6_2", "P_13_6_3", "P_13_7", "P_13_8", "P_13_9", "P_13_10", "P_13_11");
+
+    /**
+     * VAT amounts per rate (P_14_x), summed into the invoice VAT total.
+     */
+    List<String> VAT_TOTAL_FIELDS = List.of("P_14_1", "P_14_2", "P_14_3", "P_14_4", "P_14_5");
+
+    /**
+     * Invoice lines (FaWiersz), one row per line with the {@code LINE_*} fields.
+     */
+    String GROUP_LINES = "lines";
+    String LINE_NUMBER = "lineNumber";
+    String LINE_NAME = "name";
+    String LINE_UNIT = "unit";
+    String LINE_QUANTITY = "quantity";
+    String LINE_UNIT_NET_PRICE = "unitNetPrice";
+    String LINE_NET_AMOUNT = "netAmount";
+    String LINE_GROSS_AMOUNT = "grossAmount";
+    String LINE_VAT_RATE = "vatRate";
+
+    /**
+     * Validates the document against the schema registered for its root namespace and extracts
+     * the configured fields in the same forward pass. Validation errors are handed to
+     * {@code onInvalid}; if it returns normally, extraction continues with the rest of the document.
+     */
+    ExtractedFields validateAndExtract(InputStream xml, Consumer<XmlValidationException> onInvalid);
+
+    ExtractedFields extractFields(InputStream xml);
+
+    /**
+     * Sniffs the root element from the first few KB and rejects documents that are not an FA(2)
+     * invoice, or, with {@code requireSchema}, whose namespace has no schema, with a
+     * {@link com.invoice.invoice.Exception.PrevalidationException}. Returns the stream to read the
+     * document from, positioned at its start.
+     */
+    InputStream prevalidate(InputStream xml, boolean requireSchema);
+
+    ExtractedFields extractFields(Document document);
+
     String extractP2(Document document);
 
     String extractP1(Document document);
 
     String extractNip(Document document);
 
-    void validateXml(Document document, InputStream xsdStream);
+    void validateXml(Document document);
+
+    void validateXml(InputStream xml);
+
+    Document parseXml(InputStream xml);
+
+    /**
+     * Decodes standard, URL-safe or MIME Base64; whitespace is skipped.
+     */
+    byte[] decodeBase64(String base64Xml);
 
-    Document parseXml(String xmlContent);
+    /**
+     * Decodes into {@code target}, which must hold
+     * {@link com.invoice.invoice.Io.Base64Decoding#maxDecodedLength} bytes, and returns the
+     * decoded length. Lets callers decode into pooled buffers.
+     */
+    int decodeBase64(String base64Xml, byte[] target);
 
-    String decodeBase64(String base64Xml);
+    InputStream decodeBase64(InputStream base64Xml);
 }
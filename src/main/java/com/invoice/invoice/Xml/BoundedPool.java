@@ -0,0 +1,47 @@
+package com.invoice.invoice.Xml;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for objects that are costly to create and not thread-safe, such as validators,
+ * document builders and compiled XPath expressions. A borrower creates a new instance when the
+ * pool is empty; instances released while the pool is full are dropped. Pooling per object rather
+ * than per thread keeps reuse working on short-lived virtual threads.
+ */
+public final class BoundedPool<T> {
+
+    public static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int capacity;
+    private final Supplier<T> factory;
+
+    public BoundedPool(int capacity, Supplier<T> factory) {
+        this.capacity = capacity;
+        this.factory = factory;
+    }
+
+    public T borrow() {
+        T instance = idle.poll();
+        if (instance == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return instance;
+    }
+
+    /**
+     * Returns an instance to the pool. The caller must have reset it and must not use it again.
+     */
+    public void release(T instance) {
+        if (idleCount.incrementAndGet() <= capacity) {
+            idle.offer(instance);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.invoice.invoice.Xml;
+
+import org.w3c.dom.Node;
+
+/**
+ * Runs an {@link ExtractionPlan} over an already parsed DOM tree. Used by the DOM extraction
+ * mode, where the document has to be built anyway.
+ */
+public final class DomFieldExtractor {
+
+    private DomFieldExtractor() {
+    }
+
+    public static ExtractedFields extract(ExtractionPlan plan, Node root) {
+        ExtractionSession session = plan.newSession();
+        walk(root, session);
+        return session.result();
+    }
+
+    private static void walk(Node node, ExtractionSession session) {
+        for (Node child = node.getFirstChild(); child != null && !session.isComplete(); child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE -> {
+                    session.startElement(child.getNamespaceURI(), child.getLocalName());
+                    walk(child, session);
+                    session.endElement();
+                }
+                case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> session.characters(child.getNodeValue());
+                default -> {
+                }
+            }
+        }
+    }
+}
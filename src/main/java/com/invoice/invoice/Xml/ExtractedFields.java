@@ -0,0 +1,87 @@
+package com.invoice.invoice.Xml;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Values found by an {@link ExtractionSession}, keyed by field name, plus the rows of every
+ * group. Missing fields are null; groups without rows are empty.
+ */
+public final class ExtractedFields {
+
+    private static final String[] NO_GROUPS = new String[0];
+
+    private final String[] names;
+    private final String[] values;
+    private final String[] groupNames;
+    private final List<ExtractedFields>[] rows;
+
+    @SuppressWarnings("unchecked")
+    ExtractedFields(String[] names, String[] values) {
+        this(names, values, NO_GROUPS, new List[0]);
+    }
+
+    ExtractedFields(String[] names, String[] values, String[] groupNames, List<ExtractedFields>[] rows) {
+        this.names = names;
+        this.values = values;
+        this.groupNames = groupNames;
+        this.rows = rows;
+    }
+
+    public static ExtractedFields of(Map<String, String> values) {
+        return new ExtractedFields(values.keySet().toArray(String[]::new), values.values().toArray(String[]::new));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ExtractedFields of(Map<String, String> values, Map<String, List<ExtractedFields>> groups) {
+        return new ExtractedFields(values.keySet().toArray(String[]::new), values.values().toArray(String[]::new),
+                groups.keySet().toArray(String[]::new), groups.values().toArray(List[]::new));
+    }
+
+    public String get(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + name);
+    }
+
+    public List<ExtractedFields> rows(String group) {
+        for (int i = 0; i < groupNames.length; i++) {
+            if (groupNames[i].equals(group)) {
+                return rows[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown group: " + group);
+    }
+
+    public Map<String, String> asMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            map.put(names[i], values[i]);
+        }
+        return map;
+    }
+
+    public Map<String, List<ExtractedFields>> groupsAsMap() {
+        Map<String, List<ExtractedFields>> map = new LinkedHashMap<>();
+        for (int i = 0; i < groupNames.length; i++) {
+            map.put(groupNames[i], rows[i]);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        if (groupNames.length == 0) {
+            return asMap().toString();
+        }
+        Map<String, Integer> rowCounts = new LinkedHashMap<>();
+        for (int i = 0; i < groupNames.length; i++) {
+            rowCounts.put(groupNames[i], rows[i].size());
+        }
+        return asMap() + " rows " + rowCounts;
+    }
+}
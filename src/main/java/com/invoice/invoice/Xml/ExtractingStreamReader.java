@@ -0,0 +1,45 @@
+package com.invoice.invoice.Xml;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * Reader wrapper that feeds every event pulled through it into an {@link ExtractionSession}.
+ * Handing it to a consumer such as a schema {@code Validator} (via {@code StAXSource}) lets
+ * validation and field extraction share one pass over the document.
+ */
+public class ExtractingStreamReader extends StreamReaderDelegate {
+
+    private final ExtractionSession session;
+
+    public ExtractingStreamReader(XMLStreamReader reader, ExtractionSession session) {
+        super(reader);
+        this.session = session;
+        StaxFieldExtractor.accept(session, reader, reader.getEventType());
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        StaxFieldExtractor.accept(session, this, event);
+        return event;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+                || event == XMLStreamConstants.CDATA && isWhiteSpace()
+                || event == XMLStreamConstants.SPACE
+                || event == XMLStreamConstants.PROCESSING_INSTRUCTION
+                || event == XMLStreamConstants.COMMENT) {
+            event = next();
+        }
+        if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            throw new XMLStreamException("Expected start or end tag", getLocation());
+        }
+        return event;
+    }
+}
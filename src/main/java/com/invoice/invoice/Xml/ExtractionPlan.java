@@ -0,0 +1,222 @@
+package com.invoice.invoice.Xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled set of fields to pull out of an invoice in a single forward pass.
+ * <p>
+ * Each field is declared with one or more element paths in priority order. A path is a list of
+ * local names separated by {@code /} and matches wherever the current element chain ends with it,
+ * like the XPath {@code //a/b/c}. All elements must be in the plan namespace. The first element in
+ * document order matching the highest-priority path wins; lower-priority paths act as fallbacks.
+ * <p>
+ * A group collects one row per element matching its path (invoice lines, for example), each row
+ * extracted with its own plan whose paths are matched inside that element.
+ * <p>
+ * Optional fields and groups can be declared within a scope element. Once the first element
+ * matching the scope path has ended they are considered settled, found or not, so extraction can
+ * still stop early when they are absent. Values after the end of the scope are ignored.
+ * <p>
+ * Plans are thread-safe and meant to be built once; every document gets its own
+ * {@link ExtractionSession}.
+ */
+public final class ExtractionPlan {
+
+    private final String namespace;
+    private final List<String> fieldNames;
+    private final Map<String, List<PathRule>> rulesByLocalName;
+    private final int[] fieldScopes;
+    private final List<String> groupNames;
+    private final Map<String, List<GroupRule>> groupsByLocalName;
+    private final int[] groupScopes;
+    private final List<String[]> scopes;
+    private final int maxPathLength;
+
+    private ExtractionPlan(Builder builder) {
+        this.namespace = builder.namespace;
+        this.fieldNames = List.copyOf(builder.fields.keySet());
+        this.groupNames = List.copyOf(builder.groups.keySet());
+
+        List<String> scopePaths = new ArrayList<>();
+        Map<String, List<PathRule>> rules = new HashMap<>();
+        int longest = 0;
+        int fieldIndex = 0;
+        this.fieldScopes = new int[fieldNames.size()];
+        for (Map.Entry<String, List<String>> field : builder.fields.entrySet()) {
+            if (field.getValue().isEmpty()) {
+                throw new IllegalArgumentException("Field " + field.getKey() + " has no paths");
+            }
+            int priority = 0;
+            for (String path : field.getValue()) {
+                String[] segments = parse(path);
+                longest = Math.max(longest, segments.length);
+                rules.computeIfAbsent(segments[segments.length - 1], k -> new ArrayList<>())
+                        .add(new PathRule(fieldIndex, priority++, segments));
+            }
+            fieldScopes[fieldIndex++] = scopeIndex(builder.scopes.get(field.getKey()), scopePaths);
+        }
+        rules.replaceAll((k, v) -> List.copyOf(v));
+        this.rulesByLocalName = Collections.unmodifiableMap(rules);
+
+        Map<String, List<GroupRule>> groupRules = new HashMap<>();
+        int groupIndex = 0;
+        this.groupScopes = new int[groupNames.size()];
+        for (Map.Entry<String, Group> group : builder.groups.entrySet()) {
+            String[] segments = parse(group.getValue().path());
+            longest = Math.max(longest, segments.length);
+            groupRules.computeIfAbsent(segments[segments.length - 1], k -> new ArrayList<>())
+                    .add(new GroupRule(groupIndex, segments, group.getValue().rows()));
+            groupScopes[groupIndex++] = scopeIndex(builder.scopes.get(group.getKey()), scopePaths);
+        }
+        groupRules.replaceAll((k, v) -> List.copyOf(v));
+        this.groupsByLocalName = Collections.unmodifiableMap(groupRules);
+
+        this.scopes = scopePaths.stream().map(ExtractionPlan::parse).toList();
+        for (String[] scope : scopes) {
+            longest = Math.max(longest, scope.length);
+        }
+        this.maxPathLength = longest;
+    }
+
+    public static Builder builder(String namespace) {
+        return new Builder(namespace);
+    }
+
+    public ExtractionSession newSession() {
+        return new ExtractionSession(this);
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    public List<String> getGroupNames() {
+        return groupNames;
+    }
+
+    int fieldCount() {
+        return fieldNames.size();
+    }
+
+    int groupCount() {
+        return groupNames.size();
+    }
+
+    /**
+     * Index into {@link #scopes()} of the scope of a field, or -1 if it has none.
+     */
+    int fieldScope(int field) {
+        return fieldScopes[field];
+    }
+
+    int groupScope(int group) {
+        return groupScopes[group];
+    }
+
+    List<String[]> scopes() {
+        return scopes;
+    }
+
+    int maxPathLength() {
+        return maxPathLength;
+    }
+
+    List<PathRule> rulesFor(String localName) {
+        return rulesByLocalName.getOrDefault(localName, List.of());
+    }
+
+    List<GroupRule> groupsFor(String localName) {
+        return groupsByLocalName.getOrDefault(localName, List.of());
+    }
+
+    private static int scopeIndex(String scope, List<String> scopePaths) {
+        if (scope == null) {
+            return -1;
+        }
+        int index = scopePaths.indexOf(scope);
+        if (index < 0) {
+            scopePaths.add(scope);
+            index = scopePaths.size() - 1;
+        }
+        return index;
+    }
+
+    private static String[] parse(String path) {
+        String trimmed = path.trim();
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Empty field path");
+        }
+        return trimmed.split("/");
+    }
+
+    record PathRule(int field, int priority, String[] segments) {
+    }
+
+    record GroupRule(int group, String[] segments, ExtractionPlan rows) {
+    }
+
+    private record Group(String path, ExtractionPlan rows) {
+    }
+
+    public static final class Builder {
+        private final String namespace;
+        private final Map<String, List<String>> fields = new LinkedHashMap<>();
+        private final Map<String, Group> groups = new LinkedHashMap<>();
+        private final Map<String, String> scopes = new HashMap<>();
+
+        private Builder(String namespace) {
+            this.namespace = namespace;
+        }
+
+        public Builder field(String name, String... paths) {
+            return field(name, List.of(paths));
+        }
+
+        public Builder field(String name, List<String> paths) {
+            fields.put(name, List.copyOf(paths));
+            scopes.remove(name);
+            return this;
+        }
+
+        /**
+         * Declares a field that may be missing and cannot occur after the end of {@code scope}.
+         */
+        public Builder optionalField(String scope, String name, String... paths) {
+            field(name, List.of(paths));
+            scopes.put(name, scope);
+            return this;
+        }
+
+        /**
+         * Declares a group with one row per element matching {@code path}, extracted with
+         * {@code rows}, which must use the same namespace. Rows cannot occur after the end of
+         * {@code scope}; without a scope the whole document is read.
+         */
+        public Builder group(String name, String path, String scope, ExtractionPlan rows) {
+            if (!namespace.equals(rows.getNamespace())) {
+                throw new IllegalArgumentException("Group " + name + " uses a different namespace");
+            }
+            groups.put(name, new Group(path, rows));
+            if (scope != null) {
+                scopes.put(name, scope);
+            }
+            return this;
+        }
+
+        public ExtractionPlan build() {
+            return new ExtractionPlan(this);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.invoice.invoice.Xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-document matching state of an {@link ExtractionPlan}. It is driven by element and text
+ * events, so the same plan can run over StAX, SAX or a DOM walk. Not thread-safe.
+ */
+public final class ExtractionSession {
+
+    private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+    private final ExtractionPlan plan;
+    private final String[] values;
+    private final int[] priorities;
+    private final boolean[] settledFields;
+    private final List<Capture> captures = new ArrayList<>(2);
+    private final List<List<ExtractedFields>> rows;
+    private final boolean[] settledGroups;
+    private final boolean[] closedScopes;
+
+    // Local names of the open elements; null for elements outside the plan namespace.
+    private String[] stack;
+    private int depth;
+    private int remaining;
+
+    // The group row being read, if any; events inside its element are forwarded to it.
+    private ExtractionSession row;
+    private int rowGroup;
+    private int rowDepth;
+
+    ExtractionSession(ExtractionPlan plan) {
+        this.plan = plan;
+        this.values = new String[plan.fieldCount()];
+        this.priorities = new int[plan.fieldCount()];
+        Arrays.fill(priorities, NOT_FOUND);
+        this.settledFields = new boolean[plan.fieldCount()];
+        this.rows = new ArrayList<>(plan.groupCount());
+        for (int i = 0; i < plan.groupCount(); i++) {
+            rows.add(new ArrayList<>());
+        }
+        this.settledGroups = new boolean[plan.groupCount()];
+        this.closedScopes = new boolean[plan.scopes().size()];
+        this.stack = new String[Math.max(16, plan.maxPathLength() * 2)];
+        this.remaining = plan.fieldCount() + plan.groupCount();
+    }
+
+    public void startElement(String namespaceUri, String localName) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        String name = plan.getNamespace().equals(namespaceUri) ? localName : null;
+        stack[depth++] = name;
+        if (row != null) {
+            row.startElement(namespaceUri, localName);
+        }
+        if (name == null) {
+            return;
+        }
+        for (ExtractionPlan.PathRule rule : plan.rulesFor(name)) {
+            if (rule.priority() < priorities[rule.field()] && !settledFields[rule.field()]
+                    && !isCapturing(rule.field()) && matches(rule.segments())) {
+                captures.add(new Capture(rule.field(), rule.priority(), depth));
+            }
+        }
+        if (row == null) {
+            for (ExtractionPlan.GroupRule rule : plan.groupsFor(name)) {
+                if (!settledGroups[rule.group()] && matches(rule.segments())) {
+                    row = rule.rows().newSession();
+                    rowGroup = rule.group();
+                    rowDepth = depth;
+                    break;
+                }
+            }
+        }
+    }
+
+    public void characters(char[] text, int start, int length) {
+        for (int i = 0; i < captures.size(); i++) {
+            captures.get(i).text.append(text, start, length);
+        }
+        if (row != null) {
+            row.characters(text, start, length);
+        }
+    }
+
+    public void characters(String text) {
+        for (int i = 0; i < captures.size(); i++) {
+            captures.get(i).text.append(text);
+        }
+        if (row != null) {
+            row.characters(text);
+        }
+    }
+
+    public void endElement() {
+        for (int i = captures.size() - 1; i >= 0; i--) {
+            Capture capture = captures.get(i);
+            if (capture.depth == depth) {
+                captures.remove(i);
+                record(capture);
+            }
+        }
+        if (row != null) {
+            if (depth == rowDepth) {
+                rows.get(rowGroup).add(row.result());
+                row = null;
+            } else {
+                row.endElement();
+            }
+        }
+        for (int i = 0; i < closedScopes.length; i++) {
+            if (!closedScopes[i] && stack[depth - 1] != null && matches(plan.scopes().get(i))) {
+                closeScope(i);
+            }
+        }
+        stack[--depth] = null;
+    }
+
+    /**
+     * Whether every field has been found through its highest-priority path, or can no longer
+     * occur, so the rest of the document can be skipped.
+     */
+    public boolean isComplete() {
+        return remaining == 0;
+    }
+
+    public ExtractedFields result() {
+        String[] names = plan.getFieldNames().toArray(String[]::new);
+        String[] groupNames = plan.getGroupNames().toArray(String[]::new);
+        @SuppressWarnings("unchecked")
+        List<ExtractedFields>[] groupRows = rows.stream().map(List::copyOf).toArray(List[]::new);
+        return new ExtractedFields(names, values.clone(), groupNames, groupRows);
+    }
+
+    private void record(Capture capture) {
+        if (capture.priority >= priorities[capture.field]) {
+            return;
+        }
+        priorities[capture.field] = capture.priority;
+        values[capture.field] = capture.text.toString();
+        if (capture.priority == 0) {
+            settleField(capture.field);
+        }
+    }
+
+    private void closeScope(int scope) {
+        closedScopes[scope] = true;
+        for (int field = 0; field < settledFields.length; field++) {
+            if (plan.fieldScope(field) == scope) {
+                settleField(field);
+            }
+        }
+        for (int group = 0; group < settledGroups.length; group++) {
+            if (plan.groupScope(group) == scope && !settledGroups[group]) {
+                settledGroups[group] = true;
+                remaining--;
+            }
+        }
+    }
+
+    private void settleField(int field) {
+        if (!settledFields[field]) {
+            settledFields[field] = true;
+            remaining--;
+        }
+    }
+
+    private boolean isCapturing(int field) {
+        for (int i = 0; i < captures.size(); i++) {
+            if (captures.get(i).field == field) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String[] segments) {
+        if (segments.length > depth) {
+            return false;
+        }
+        for (int i = 1; i <= segments.length; i++) {
+            if (!segments[segments.length - i].equals(stack[depth - i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Capture {
+        private final int field;
+        private final int priority;
+        private final int depth;
+        private final StringBuilder text = new StringBuilder(32);
+
+        private Capture(int field, int priority, int depth) {
+            this.field = field;
+            this.priority = priority;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.invoice.invoice.Xml;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Conversions from the text of FA(2) elements to the typed values stored on {@code Invoice}.
+ * Invalid values are reported as {@link IllegalArgumentException} for the caller to translate.
+ */
+public final class InvoiceFields {
+
+    private InvoiceFields() {
+    }
+
+    /**
+     * Reduces a Polish NIP to its 10 digits, dropping a leading {@code PL} prefix and the
+     * separators people commonly type ({@code 526-025-02-74}, {@code PL 5260250274}).
+     */
+    public static String normalizeNip(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("NIP is missing");
+        }
+        String trimmed = value.strip();
+        int start = trimmed.regionMatches(true, 0, "PL", 0, 2) ? 2 : 0;
+        StringBuilder digits = new StringBuilder(10);
+        for (int i = start; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c != '-' && c != ' ') {
+                throw new IllegalArgumentException("Invalid NIP: " + value);
+            }
+        }
+        if (digits.length() != 10) {
+            throw new IllegalArgumentException("Invalid NIP: " + value);
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Parses an optional decimal amount; {@code null} stays {@code null}.
+     */
+    public static BigDecimal parseDecimal(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+    public static Integer parseInteger(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+        }
+    }
+
+    /**
+     * Parses P_1, an {@code xs:date}, which may carry a time zone ({@code 2023-08-31Z}).
+     */
+    public static LocalDate parseIssueDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("P_1 is missing");
+        }
+        try {
+            return LocalDate.parse(value.strip(), DateTimeFormatter.ISO_DATE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid P_1 issue date: " + value, e);
+        }
+    }
+}
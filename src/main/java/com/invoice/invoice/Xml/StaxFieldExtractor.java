@@ -0,0 +1,44 @@
+package com.invoice.invoice.Xml;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Runs an {@link ExtractionPlan} over a {@link XMLStreamReader} in one forward pass without
+ * building a tree, and stops reading as soon as every field has been found.
+ */
+public final class StaxFieldExtractor {
+
+    private StaxFieldExtractor() {
+    }
+
+    public static ExtractedFields extract(ExtractionPlan plan, XMLStreamReader reader) throws XMLStreamException {
+        ExtractionSession session = plan.newSession();
+        accept(session, reader, reader.getEventType());
+        drain(session, reader);
+        return session.result();
+    }
+
+    /**
+     * Continues reading from the current position of the reader until the session is complete
+     * or the document ends. Events before the current position must already have been fed.
+     */
+    public static void drain(ExtractionSession session, XMLStreamReader reader) throws XMLStreamException {
+        while (!session.isComplete() && reader.hasNext()) {
+            accept(session, reader, reader.next());
+        }
+    }
+
+    static void accept(ExtractionSession session, XMLStreamReader reader, int event) {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT ->
+                    session.startElement(reader.getNamespaceURI(), reader.getLocalName());
+            case XMLStreamConstants.END_ELEMENT -> session.endElement();
+            case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    session.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            default -> {
+            }
+        }
+    }
+}
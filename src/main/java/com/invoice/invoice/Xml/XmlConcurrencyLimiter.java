@@ -0,0 +1,48 @@
+package com.invoice.invoice.Xml;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.CapacityExceededException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many invoices are parsed and validated at the same time. With virtual threads request
+ * concurrency is effectively unbounded, so without this limit CPU-heavy XML work could pile up and
+ * hold database connections while it waits for CPU. Callers that cannot get a permit within the
+ * configured timeout are rejected with {@link CapacityExceededException}.
+ */
+@Component
+public class XmlConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final long timeoutNanos;
+
+    public XmlConcurrencyLimiter(InvoiceProperties properties) {
+        InvoiceProperties.Concurrency concurrency = properties.getConcurrency();
+        this.permits = new Semaphore(concurrency.getXmlPermits(), true);
+        this.timeoutNanos = concurrency.getAcquireTimeout().toNanos();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new CapacityExceededException("Too many invoices are being processed, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CapacityExceededException("Interrupted while waiting for an XML processing slot", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
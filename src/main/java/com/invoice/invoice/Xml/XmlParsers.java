@@ -0,0 +1,191 @@
+package com.invoice.invoice.Xml;
+
+import com.invoice.invoice.Exception.XmlParsingException;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * XML parser infrastructure shared by the application. Factories are the JDK built-in ones, created
+ * directly instead of through the ServiceLoader lookup that scans the classpath on first use, and
+ * hardened once: DOCTYPE declarations, external entities and external DTD/schema access are
+ * disabled for documents, and secure processing enforces the JDK entity and size limits. The non-thread-safe
+ * objects created from them ({@link DocumentBuilder}, {@link XPathExpression}) are pooled and
+ * reset between uses.
+ */
+@Component
+public class XmlParsers {
+
+    // Reports problems through the thrown exception only, instead of the default stderr output.
+    private static final ErrorHandler RETHROWING_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    };
+
+    private final XMLInputFactory inputFactory = createInputFactory();
+    private final DocumentBuilderFactory documentBuilderFactory = createDocumentBuilderFactory();
+    private final XPathFactory xpathFactory = createXPathFactory();
+    private final ReentrantLock factoryLock = new ReentrantLock();
+    private final BoundedPool<DocumentBuilder> documentBuilders =
+            new BoundedPool<>(BoundedPool.DEFAULT_CAPACITY, this::newDocumentBuilder);
+
+    /**
+     * The shared StAX factory; creating readers from a configured factory is thread-safe.
+     */
+    public XMLInputFactory inputFactory() {
+        return inputFactory;
+    }
+
+    public Document parse(InputStream xml) throws SAXException, IOException {
+        DocumentBuilder builder = documentBuilders.borrow();
+        builder.setErrorHandler(RETHROWING_ERROR_HANDLER);
+        try {
+            return builder.parse(xml);
+        } finally {
+            builder.reset();
+            documentBuilders.release(builder);
+        }
+    }
+
+    /**
+     * Compiles the expression once per pooled instance; evaluations borrow one for the call. The
+     * first instance is compiled right away, so an invalid expression fails at startup.
+     */
+    public CompiledXPath compile(String expression, NamespaceContext namespaces) {
+        BoundedPool<XPathExpression> expressions = new BoundedPool<>(BoundedPool.DEFAULT_CAPACITY,
+                () -> newExpression(expression, namespaces));
+        expressions.release(expressions.borrow());
+        return new CompiledXPath(expressions);
+    }
+
+    /**
+     * A new schema factory with secure processing limits. Schema factories are not thread-safe and
+     * schemas are compiled rarely, so callers get their own instance. The schemas themselves are
+     * trusted configuration and may import other schemas by URL, as the official FA(2) ones do.
+     */
+    public SchemaFactory newSchemaFactory() {
+        SchemaFactory factory = SchemaFactory.newDefaultInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "all");
+        } catch (SAXNotRecognizedException | SAXNotSupportedException e) {
+            throw new IllegalStateException("Schema factory does not support secure processing", e);
+        }
+        return factory;
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        factoryLock.lock();
+        try {
+            return documentBuilderFactory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new XmlParsingException("Failed to create XML parser", e);
+        } finally {
+            factoryLock.unlock();
+        }
+    }
+
+    private XPathExpression newExpression(String expression, NamespaceContext namespaces) {
+        factoryLock.lock();
+        try {
+            XPath xpath = xpathFactory.newXPath();
+            xpath.setNamespaceContext(namespaces);
+            return xpath.compile(expression);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath expression " + expression, e);
+        } finally {
+            factoryLock.unlock();
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newDefaultInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("XML parser does not support secure processing", e);
+        }
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        return factory;
+    }
+
+    private static XPathFactory createXPathFactory() {
+        XPathFactory factory = XPathFactory.newDefaultInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (XPathFactoryConfigurationException e) {
+            throw new IllegalStateException("XPath factory does not support secure processing", e);
+        }
+        return factory;
+    }
+
+    /**
+     * A precompiled XPath expression that can be evaluated from any thread.
+     */
+    public static final class CompiledXPath {
+        private final BoundedPool<XPathExpression> expressions;
+
+        private CompiledXPath(BoundedPool<XPathExpression> expressions) {
+            this.expressions = expressions;
+        }
+
+        public Node evaluateNode(Object item) throws XPathExpressionException {
+            XPathExpression expression = expressions.borrow();
+            try {
+                return (Node) expression.evaluate(item, XPathConstants.NODE);
+            } finally {
+                expressions.release(expression);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). Existing databases are baselined at
+-- this version and skip it.
+CREATE TABLE IF NOT EXISTS invoices (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nip        VARCHAR(20)  NOT NULL,
+    p1         VARCHAR(255) NOT NULL,
+    p2         VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
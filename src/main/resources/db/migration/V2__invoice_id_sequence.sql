@@ -0,0 +1,7 @@
+-- Identity columns prevent Hibernate from batching inserts. Ids now come from a sequence that hands
+-- out blocks of 50 (pooled-lo optimizer), continuing after the highest existing id.
+ALTER TABLE invoices ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE invoices ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE invoices_seq INCREMENT BY 50 OWNED BY invoices.id;
+SELECT setval('invoices_seq', COALESCE((SELECT MAX(id) FROM invoices), 0) + 1, false);
@@ -0,0 +1,8 @@
+-- Duplicate detection: SHA-256 (hex) of the decoded invoice XML and the optional client
+-- Idempotency-Key. Rows stored before this migration keep NULL hashes, which the unique
+-- indexes allow any number of.
+ALTER TABLE invoices ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE invoices ADD COLUMN idempotency_key VARCHAR(255);
+
+CREATE UNIQUE INDEX ux_invoices_content_hash ON invoices (content_hash);
+CREATE UNIQUE INDEX ux_invoices_idempotency_key ON invoices (idempotency_key);
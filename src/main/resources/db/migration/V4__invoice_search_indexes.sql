@@ -0,0 +1,6 @@
+-- Indexes behind GET /api/invoices. Every page is read in (created_at, id) order, optionally
+-- narrowed to one NIP; P_1 range filters use their own index. Built concurrently so existing
+-- tables are not locked for writes (Flyway runs these statements outside a transaction).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_invoices_created_at_id ON invoices (created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_invoices_nip_created_at_id ON invoices (nip, created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_invoices_p1 ON invoices (p1);
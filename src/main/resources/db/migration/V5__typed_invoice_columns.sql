@@ -0,0 +1,27 @@
+-- Typed columns: NIP as its 10 digits, P_1 as a date, and one invoice number per seller.
+-- Rewrites the table under an exclusive lock; on large tables run it in a maintenance window.
+-- Rows that cannot be converted (a NIP that is not 10 digits once "PL" and separators are
+-- removed, a P_1 that is not a date) make the migration fail and have to be fixed by hand first.
+-- Of rows repeating a seller/number pair only the first stored one is kept; the others are moved
+-- to invoices_nip_p2_duplicates for review.
+UPDATE invoices
+SET nip = regexp_replace(regexp_replace(upper(btrim(nip)), '^PL', ''), '[- ]', '', 'g')
+WHERE nip !~ '^[0-9]{10}$';
+
+ALTER TABLE invoices ADD CONSTRAINT ck_invoices_nip CHECK (nip ~ '^[0-9]{10}$');
+
+ALTER TABLE invoices
+    ALTER COLUMN nip TYPE CHAR(10),
+    ALTER COLUMN p1 TYPE DATE USING left(btrim(p1), 10)::date;
+
+-- Nothing references invoices yet at this version, so the extra rows can simply be removed.
+CREATE TABLE invoices_nip_p2_duplicates AS
+SELECT i.*, first.id AS kept_id
+FROM invoices i
+JOIN (SELECT nip, p2, min(id) AS id FROM invoices GROUP BY nip, p2 HAVING count(*) > 1) first
+    ON first.nip = i.nip AND first.p2 = i.p2
+WHERE i.id <> first.id;
+
+DELETE FROM invoices i USING invoices_nip_p2_duplicates d WHERE i.id = d.id;
+
+ALTER TABLE invoices ADD CONSTRAINT ux_invoices_nip_p2 UNIQUE (nip, p2);
@@ -0,0 +1,26 @@
+-- Buyer, currency and totals extracted with the rest of the invoice, and its lines. Rows stored
+-- before this migration keep NULLs here. Line ids come from a sequence in blocks of 50 so the
+-- lines of a batch are inserted in JDBC batches.
+ALTER TABLE invoices
+    ADD COLUMN buyer_nip   CHAR(10),
+    ADD COLUMN currency    CHAR(3),
+    ADD COLUMN net_total   NUMERIC(18, 2),
+    ADD COLUMN vat_total   NUMERIC(18, 2),
+    ADD COLUMN gross_total NUMERIC(18, 2);
+
+CREATE TABLE invoice_lines (
+    id             BIGINT PRIMARY KEY,
+    invoice_id     BIGINT         NOT NULL REFERENCES invoices (id) ON DELETE CASCADE,
+    line_number    INTEGER,
+    name           VARCHAR(512),
+    unit           VARCHAR(256),
+    quantity       NUMERIC(22, 6),
+    unit_net_price NUMERIC(22, 8),
+    net_amount     NUMERIC(18, 2),
+    gross_amount   NUMERIC(18, 2),
+    vat_rate       VARCHAR(16)
+);
+
+CREATE INDEX ix_invoice_lines_invoice_id ON invoice_lines (invoice_id);
+
+CREATE SEQUENCE invoice_lines_seq INCREMENT BY 50 OWNED BY invoice_lines.id;
@@ -0,0 +1,18 @@
+-- Change events of saved invoices, written in the same transaction as the invoice. The relay gives
+-- each event a feed position when it publishes it; positions are handed out under an advisory lock,
+-- so consumers following them in order never skip an event that is committed later.
+CREATE TABLE invoice_outbox (
+    id            BIGINT PRIMARY KEY,
+    invoice_id    BIGINT      NOT NULL,
+    event_type    VARCHAR(32) NOT NULL,
+    payload       JSONB       NOT NULL,
+    created_at    TIMESTAMP   NOT NULL,
+    feed_position BIGINT UNIQUE,
+    published_at  TIMESTAMP
+);
+
+CREATE INDEX ix_invoice_outbox_pending ON invoice_outbox (id) WHERE feed_position IS NULL;
+CREATE INDEX ix_invoice_outbox_published_at ON invoice_outbox (published_at);
+
+CREATE SEQUENCE invoice_outbox_seq INCREMENT BY 50 OWNED BY invoice_outbox.id;
+CREATE SEQUENCE invoice_outbox_position_seq OWNED BY invoice_outbox.feed_position;
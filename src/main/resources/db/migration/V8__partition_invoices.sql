@@ -0,0 +1,96 @@
+-- Range-partitions invoices by created_at, one partition per month. Existing rows stay where they
+-- are: the old table becomes the partition for everything before next month, so no data is copied.
+-- Attaching it scans the table once and builds the (id, created_at) key index; on large tables run
+-- this in a maintenance window. Later partitions are created ahead of time by the application
+-- (InvoicePartitionServiceImpl), which also detaches and archives expired ones.
+--
+-- Unique constraints on a partitioned table must include the partition key, so the keys that have
+-- to be unique across all invoices move to invoice_keys. A trigger fills it on every insert, which
+-- keeps duplicate detection and the unique-violation fallback working as before; the lines now
+-- reference it instead of the partitioned table.
+
+ALTER TABLE invoices RENAME TO invoices_legacy;
+ALTER INDEX ix_invoices_created_at_id RENAME TO ix_invoices_legacy_created_at_id;
+ALTER INDEX ix_invoices_nip_created_at_id RENAME TO ix_invoices_legacy_nip_created_at_id;
+ALTER INDEX ix_invoices_p1 RENAME TO ix_invoices_legacy_p1;
+
+CREATE TABLE invoice_keys (
+    invoice_id      BIGINT PRIMARY KEY,
+    created_at      TIMESTAMP(6) NOT NULL,
+    nip             CHAR(10)     NOT NULL,
+    p2              VARCHAR(255) NOT NULL,
+    content_hash    VARCHAR(64),
+    idempotency_key VARCHAR(255),
+    CONSTRAINT ux_invoice_keys_nip_p2 UNIQUE (nip, p2)
+);
+
+INSERT INTO invoice_keys (invoice_id, created_at, nip, p2, content_hash, idempotency_key)
+SELECT id, created_at, nip, p2, content_hash, idempotency_key
+FROM invoices_legacy;
+
+CREATE UNIQUE INDEX ux_invoice_keys_content_hash ON invoice_keys (content_hash);
+CREATE UNIQUE INDEX ux_invoice_keys_idempotency_key ON invoice_keys (idempotency_key);
+CREATE INDEX ix_invoice_keys_created_at ON invoice_keys (created_at);
+
+ALTER TABLE invoice_lines DROP CONSTRAINT invoice_lines_invoice_id_fkey;
+ALTER TABLE invoice_lines
+    ADD CONSTRAINT fk_invoice_lines_invoice FOREIGN KEY (invoice_id)
+        REFERENCES invoice_keys (invoice_id) ON DELETE CASCADE;
+
+ALTER TABLE invoices_legacy DROP CONSTRAINT ux_invoices_nip_p2;
+DROP INDEX ux_invoices_content_hash;
+DROP INDEX ux_invoices_idempotency_key;
+ALTER TABLE invoices_legacy DROP CONSTRAINT IF EXISTS invoices_pkey;
+-- A partition needs the parent's NOT NULL columns and its CHECK constraints under the same names;
+-- ck_invoices_nip keeps its name for that, and id stays NOT NULL without the primary key.
+ALTER TABLE invoices_legacy ALTER COLUMN id SET NOT NULL;
+
+CREATE TABLE invoices (
+    id              BIGINT       NOT NULL,
+    nip             CHAR(10)     NOT NULL CONSTRAINT ck_invoices_nip CHECK (nip ~ '^[0-9]{10}$'),
+    p1              DATE         NOT NULL,
+    p2              VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    content_hash    VARCHAR(64),
+    idempotency_key VARCHAR(255),
+    buyer_nip       CHAR(10),
+    currency        CHAR(3),
+    net_total       NUMERIC(18, 2),
+    vat_total       NUMERIC(18, 2),
+    gross_total     NUMERIC(18, 2),
+    CONSTRAINT pk_invoices PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE invoices_seq OWNED BY invoices.id;
+
+DO $$
+DECLARE
+    next_month TIMESTAMP := date_trunc('month', localtimestamp) + INTERVAL '1 month';
+    month_start TIMESTAMP;
+BEGIN
+    EXECUTE format('ALTER TABLE invoices ATTACH PARTITION invoices_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   next_month);
+    FOR i IN 0..2 LOOP
+        month_start := next_month + make_interval(months => i);
+        EXECUTE format('CREATE TABLE %I PARTITION OF invoices FOR VALUES FROM (%L) TO (%L)',
+                       'invoices_' || to_char(month_start, 'YYYYMM'), month_start,
+                       month_start + INTERVAL '1 month');
+    END LOOP;
+END $$;
+
+-- Created on the parent, these cascade to every partition; the renamed indexes of the old table
+-- match and are attached instead of being built again.
+CREATE INDEX ix_invoices_created_at_id ON invoices (created_at, id);
+CREATE INDEX ix_invoices_nip_created_at_id ON invoices (nip, created_at, id);
+CREATE INDEX ix_invoices_p1 ON invoices (p1);
+
+CREATE FUNCTION invoice_keys_insert() RETURNS TRIGGER LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO invoice_keys (invoice_id, created_at, nip, p2, content_hash, idempotency_key)
+    VALUES (NEW.id, NEW.created_at, NEW.nip, NEW.p2, NEW.content_hash, NEW.idempotency_key);
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER tr_invoices_keys
+    AFTER INSERT ON invoices
+    FOR EACH ROW EXECUTE FUNCTION invoice_keys_insert();
@@ -0,0 +1,114 @@
+package com.invoice.invoice.Admission;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(-1_000 * MS);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = limiter(10, 2, 12);
+
+    @Test
+    void rejectsRequestsOverTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+        }
+
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(1));
+        assertThat(limiter.inFlight()).isEqualTo(10);
+        assertThat(meterRegistry.get("invoice.admission.rejected").tag("reason", "concurrency").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void fastRoundsAtFullUseRaiseTheLimitUpToTheMaximum() {
+        runRound(limiter.limit(), 50 * MS, true);
+        assertThat(limiter.limit()).isEqualTo(10);
+
+        runRound(limiter.limit(), 50 * MS, true);
+        assertThat(limiter.limit()).isEqualTo(11);
+
+        for (int i = 0; i < 10; i++) {
+            runRound(limiter.limit(), 50 * MS, true);
+        }
+        assertThat(limiter.limit()).isEqualTo(12);
+    }
+
+    @Test
+    void fastRequestsAtLowUseLeaveTheLimitAlone() {
+        for (int i = 0; i < 100; i++) {
+            runRound(2, 50 * MS, true);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void slowRequestsCutTheLimitDownToTheMinimum() {
+        runRound(1, 1_500 * MS, true);
+        assertThat(limiter.limit()).isEqualTo(9);
+
+        for (int i = 0; i < 50; i++) {
+            runRound(1, 1_500 * MS, true);
+        }
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void overloadCutsTheLimitWhateverTheLatency() {
+        long start = limiter.acquire();
+        clock.addAndGet(MS);
+        limiter.release(start, true, false);
+
+        assertThat(limiter.limit()).isEqualTo(9);
+    }
+
+    @Test
+    void unsampledRequestsDoNotMoveTheLimit() {
+        runRound(10, 5_000 * MS, false);
+        runRound(10, MS, false);
+
+        assertThat(limiter.limit()).isEqualTo(10);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    /**
+     * Admits {@code requests} at once, lets {@code latency} pass and releases them all.
+     */
+    private void runRound(int requests, long latency, boolean sample) {
+        long[] starts = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            starts[i] = limiter.acquire();
+        }
+        clock.addAndGet(latency);
+        for (long start : starts) {
+            limiter.release(start, false, sample);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        InvoiceProperties properties = new InvoiceProperties();
+        InvoiceProperties.Admission admission = properties.getAdmission();
+        admission.setInitialLimit(initial);
+        admission.setMinLimit(min);
+        admission.setMaxLimit(max);
+        admission.setTargetLatency(Duration.ofSeconds(1));
+        admission.setBackoffRatio(0.9);
+        return new AdaptiveConcurrencyLimiter(properties, meterRegistry, clock::get);
+    }
+}
@@ -0,0 +1,65 @@
+package com.invoice.invoice.Admission;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientRateLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClientRateLimiter limiter;
+
+    ClientRateLimiterTest() {
+        InvoiceProperties properties = new InvoiceProperties();
+        InvoiceProperties.Admission admission = properties.getAdmission();
+        admission.setRatePerSecond(10);
+        admission.setBurst(2);
+        admission.setAddressRatePerSecond(100);
+        admission.setAddressBurst(5);
+        limiter = new ClientRateLimiter(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    void limitsEachClientToItsRate() {
+        limiter.acquire("10.0.0.1", "X-Api-Key:a");
+        limiter.acquire("10.0.0.1", "X-Api-Key:a");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "X-Api-Key:a"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting(e -> ((TooManyRequestsException) e).getRetryAfter())
+                .isEqualTo(Duration.ofMillis(100));
+        limiter.acquire("10.0.0.1", "X-Api-Key:b");
+
+        clock.addAndGet(100 * MS);
+        limiter.acquire("10.0.0.1", "X-Api-Key:a");
+    }
+
+    @Test
+    void rotatingClientKeysDoesNotEscapeTheAddressLimit() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("10.0.0.1", "X-Api-Key:" + i);
+        }
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "X-Api-Key:fresh"))
+                .isInstanceOf(TooManyRequestsException.class);
+        // The rejected request left no bucket behind.
+        assertThat(meterRegistry.get("invoice.admission.clients").gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get("invoice.admission.rejected").tag("reason", "rate").counter().count())
+                .isEqualTo(1);
+
+        limiter.acquire("10.0.0.2", "X-Api-Key:fresh");
+        clock.addAndGet(10 * MS);
+        limiter.acquire("10.0.0.1", "X-Api-Key:fresh");
+    }
+}
@@ -0,0 +1,94 @@
+package com.invoice.invoice.Admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Arbitrary origin: nanoTime values may be negative.
+    private static final long T0 = -5_000 * MS;
+
+    @Test
+    void allowsTheBurstAtOnceThenReportsTheWait() {
+        TokenBucket bucket = new TokenBucket(10, 3, T0);
+
+        assertThat(bucket.tryTake(T0)).isZero();
+        assertThat(bucket.tryTake(T0)).isZero();
+        assertThat(bucket.tryTake(T0)).isZero();
+        assertThat(bucket.tryTake(T0)).isEqualTo(100 * MS);
+        assertThat(bucket.tryTake(T0 + 40 * MS)).isEqualTo(60 * MS);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(10, 3, T0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryTake(T0);
+        }
+
+        assertThat(bucket.tryTake(T0 + 100 * MS)).isZero();
+        assertThat(bucket.tryTake(T0 + 100 * MS)).isEqualTo(100 * MS);
+        assertThat(bucket.tryTake(T0 + 250 * MS)).isZero();
+        assertThat(bucket.tryTake(T0 + 250 * MS)).isEqualTo(50 * MS);
+    }
+
+    @Test
+    void sustainsTheRateButNoMore() {
+        TokenBucket bucket = new TokenBucket(10, 1, T0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(bucket.tryTake(T0 + i * 100 * MS)).isZero();
+            assertThat(bucket.tryTake(T0 + i * 100 * MS)).isPositive();
+        }
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateBeyondCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 3, T0);
+        long later = T0 + 60_000 * MS;
+
+        assertThat(bucket.tryTake(later)).isZero();
+        assertThat(bucket.tryTake(later)).isZero();
+        assertThat(bucket.tryTake(later)).isZero();
+        assertThat(bucket.tryTake(later)).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void concurrentTakersGetExactlyTheCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1_000, T0);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryTake(T0) == 0) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(taken).hasValue(1_000);
+    }
+}
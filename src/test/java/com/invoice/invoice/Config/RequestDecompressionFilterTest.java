@@ -0,0 +1,71 @@
+package com.invoice.invoice.Config;
+
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDecompressionFilterTest {
+
+    private final RequestDecompressionFilter filter;
+
+    RequestDecompressionFilterTest() {
+        InvoiceProperties properties = new InvoiceProperties();
+        // About 200 KB of request body for single invoices, 1 MB for bulk uploads.
+        properties.getPayload().setMaxSize(DataSize.ofKilobytes(100));
+        properties.getPayload().setMaxDecompressedBulkSize(DataSize.ofMegabytes(1));
+        filter = new RequestDecompressionFilter(properties);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/api/invoices, 150", "/api/invoices/async, 150", "/api/invoices/batch, 1000", "/api/archives, 1000"})
+    void passesBodiesWithinTheLimit(String path, int kilobytes) throws Exception {
+        InputStream body = filtered(path, kilobytes * 1024);
+
+        assertThat(body.transferTo(OutputStream.nullOutputStream())).isEqualTo(kilobytes * 1024L);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/api/invoices, 250", "/api/invoices/async, 250", "/api/invoices/batch, 1100", "/api/archives, 1100"})
+    void stopsInflatingPastTheLimit(String path, int kilobytes) throws Exception {
+        InputStream body = filtered(path, kilobytes * 1024);
+
+        assertThatThrownBy(() -> body.transferTo(OutputStream.nullOutputStream()))
+                .isInstanceOf(PayloadTooLargeException.class)
+                .hasMessageStartingWith("Decompressed request body exceeds");
+    }
+
+    private InputStream filtered(String path, int size) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader("Content-Encoding", "gzip");
+        request.setContent(gzippedZeros(size));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        HttpServletRequest forwarded = (HttpServletRequest) chain.getRequest();
+        assertThat(forwarded.getHeader("Content-Encoding")).isNull();
+        return forwarded.getInputStream();
+    }
+
+    private static byte[] gzippedZeros(int size) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(new byte[size]);
+        }
+        return compressed.toByteArray();
+    }
+}
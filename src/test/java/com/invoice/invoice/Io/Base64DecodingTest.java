@@ -0,0 +1,179 @@
+package com.invoice.invoice.Io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.invoice.invoice.Exception.Base64DecodingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base64DecodingTest {
+
+    // 0xfb 0xff 0xbf encodes to "+/+/" in the standard and "-_-_" in the URL-safe alphabet.
+    private static final byte[] BOTH_ALPHABETS = {(byte) 0xfb, (byte) 0xff, (byte) 0xbf};
+
+    @Test
+    void decodesStandardAndUrlSafeAlphabets() {
+        assertThat(decode("+/+/")).isEqualTo(BOTH_ALPHABETS);
+        assertThat(decode("-_-_")).isEqualTo(BOTH_ALPHABETS);
+        assertThat(decode("+_-/")).isEqualTo(BOTH_ALPHABETS);
+        assertThat(Base64Decoding.decodedLength("-_-_")).isEqualTo(3);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"QUJD", "QUI=", "QUI", "QQ==", "QQ"})
+    void paddingIsOptional(String base64) {
+        byte[] expected = Base64.getDecoder().decode(pad(base64));
+
+        assertThat(decode(base64)).isEqualTo(expected);
+        assertThat(Base64Decoding.decodedLength(base64)).isEqualTo(expected.length);
+        assertThat(decodeStream(base64.getBytes(StandardCharsets.US_ASCII), 1, 1)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"QQ===", "QUI==", "QUJD="})
+    void rejectsExcessPadding(String base64) {
+        assertRejected(base64);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"=QUJ", "Q=UJ", "QQ=A", "QQ==QUJD", "QQ=", "Q"})
+    void rejectsMisplacedPaddingAndTruncatedGroups(String base64) {
+        assertRejected(base64);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"QU*D", "QUJDé", "QU.D"})
+    void rejectsForeignCharactersWithTheirPosition(String base64) {
+        assertThatThrownBy(() -> decode(base64))
+                .isInstanceOf(Base64DecodingException.class)
+                .hasMessageContaining("position");
+    }
+
+    @Test
+    void skipsEmbeddedWhitespace() {
+        byte[] data = "Faktura VAT".getBytes(StandardCharsets.UTF_8);
+        String wrapped = " " + Base64.getMimeEncoder(4, "\r\n".getBytes(StandardCharsets.US_ASCII))
+                .encodeToString(data).replace("dHVy", "dH\tVy") + "\n";
+
+        assertThat(decode(wrapped)).isEqualTo(data);
+        assertThat(Base64Decoding.decodedLength(wrapped)).isEqualTo(data.length);
+        assertThat(decodeStream(wrapped.getBytes(StandardCharsets.US_ASCII), 7, 5)).isEqualTo(data);
+    }
+
+    @Test
+    void streamsAcrossBufferBoundaries() {
+        // Larger than the 64 KB read buffer, MIME-wrapped, so groups and line breaks straddle reads.
+        byte[] data = new byte[200_003];
+        new Random(42).nextBytes(data);
+        byte[] base64 = Base64.getMimeEncoder().encode(data);
+
+        for (int chunk : new int[]{1, 3, 4097, 65_536, 70_001}) {
+            for (int readSize : new int[]{1, 2, 3, 8192}) {
+                assertThat(decodeStream(base64, chunk, readSize))
+                        .as("input chunks of %d, reads of %d", chunk, readSize)
+                        .isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    void streamingRejectsInvalidInputAtTheEnd() {
+        byte[] truncated = "QUJDQ".getBytes(StandardCharsets.US_ASCII);
+
+        assertThatThrownBy(() -> decodeStream(truncated, 2, 16)).isInstanceOf(Base64DecodingException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-_-_", "+/+/", "+_-/"})
+    void jsonVariantAcceptsBothAlphabets(String base64) throws IOException {
+        assertThat(decodeJson(base64)).isEqualTo(BOTH_ALPHABETS);
+    }
+
+    @Test
+    void jsonVariantAcceptsMissingPaddingAndEscapedLineBreaks() throws IOException {
+        assertThat(decodeJson("QUI")).isEqualTo("AB".getBytes(StandardCharsets.US_ASCII));
+        assertThat(decodeJson("QUI=")).isEqualTo("AB".getBytes(StandardCharsets.US_ASCII));
+        assertThat(decodeJson("QQ")).isEqualTo("A".getBytes(StandardCharsets.US_ASCII));
+        assertThat(decodeJson("QQ==")).isEqualTo("A".getBytes(StandardCharsets.US_ASCII));
+        assertThat(decodeJson("QUJD\\r\\nQUJD")).isEqualTo("ABCABC".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] decode(String base64) {
+        byte[] target = new byte[Base64Decoding.maxDecodedLength(base64.length())];
+        int length = Base64Decoding.decode(base64, target);
+        return Arrays.copyOf(target, length);
+    }
+
+    private static byte[] decodeStream(byte[] base64, int chunk, int readSize) {
+        try (InputStream in = Base64Decoding.wrap(new ChunkedInputStream(base64, chunk))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[readSize];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] decodeJson(String base64) throws IOException {
+        try (JsonParser parser = new JsonFactory().createParser("{\"base64xml\":\"" + base64 + "\"}")) {
+            parser.nextToken();
+            parser.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_STRING);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            parser.readBinaryValue(Base64Decoding.JSON, out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void assertRejected(String base64) {
+        assertThatThrownBy(() -> decode(base64)).isInstanceOf(Base64DecodingException.class);
+        assertThatThrownBy(() -> Base64Decoding.decodedLength(base64)).isInstanceOf(Base64DecodingException.class);
+        assertThatThrownBy(() -> decodeStream(base64.getBytes(StandardCharsets.US_ASCII), 1, 4))
+                .isInstanceOf(Base64DecodingException.class);
+    }
+
+    private static String pad(String base64) {
+        return base64 + "==".substring(0, (4 - base64.length() % 4) % 4);
+    }
+
+    /**
+     * Hands out at most {@code chunk} bytes per read and reports nothing available, like a socket.
+     */
+    private static final class ChunkedInputStream extends FilterInputStream {
+        private final int chunk;
+
+        private ChunkedInputStream(byte[] data, int chunk) {
+            super(new ByteArrayInputStream(data));
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, chunk));
+        }
+
+        @Override
+        public int available() {
+            return 0;
+        }
+    }
+}
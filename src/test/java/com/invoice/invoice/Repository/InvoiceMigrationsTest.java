@@ -0,0 +1,99 @@
+package com.invoice.invoice.Repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Flyway migrations step by step against a table holding rows from before each
+ * conversion, the way an existing database is upgraded, rather than only on an empty schema.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InvoiceMigrationsTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void upgradesSeededInvoicesToThePartitionedTable() throws SQLException {
+        migrate("4");
+        execute("""
+                INSERT INTO invoices (id, nip, p1, p2, created_at) VALUES
+                    (nextval('invoices_seq'), 'PL 978-139-92-59', '2023-08-31', 'FV/1', localtimestamp - INTERVAL '40 days'),
+                    (nextval('invoices_seq'), '9781399259', '2023-09-01T10:00:00', 'FV/1', localtimestamp - INTERVAL '30 days'),
+                    (nextval('invoices_seq'), '5260250274', '2023-09-02', 'FV/2', localtimestamp - INTERVAL '1 day')
+                """);
+
+        migrate("6");
+        execute("""
+                INSERT INTO invoice_lines (id, invoice_id, line_number, net_amount)
+                SELECT nextval('invoice_lines_seq'), min(id), 1, 100.00 FROM invoices
+                """);
+
+        migrate(null);
+
+        assertThat(queryLong("SELECT count(*) FROM invoices")).isEqualTo(2);
+        assertThat(queryLong("SELECT count(*) FROM invoices_nip_p2_duplicates")).isEqualTo(1);
+        assertThat(queryLong("SELECT count(*) FROM invoices WHERE nip = '9781399259' AND p1 = DATE '2023-08-31'"))
+                .isEqualTo(1);
+        assertThat(queryLong("""
+                SELECT count(*) FROM pg_inherits
+                WHERE inhrelid = 'invoices_legacy'::regclass AND inhparent = 'invoices'::regclass
+                """)).isEqualTo(1);
+        assertThat(queryLong("SELECT count(*) FROM invoice_keys")).isEqualTo(2);
+        assertThat(queryLong("SELECT count(*) FROM invoice_lines")).isEqualTo(1);
+
+        execute("""
+                INSERT INTO invoices (id, nip, p1, p2, created_at)
+                VALUES (nextval('invoices_seq'), '5260250274', DATE '2024-01-01', 'FV/3', localtimestamp)
+                """);
+        assertThat(queryLong("SELECT count(*) FROM invoice_keys")).isEqualTo(3);
+
+        assertThatThrownBy(() -> execute("""
+                INSERT INTO invoices (id, nip, p1, p2, created_at)
+                VALUES (nextval('invoices_seq'), '9781399259', DATE '2024-01-01', 'FV/1', localtimestamp)
+                """)).isInstanceOf(SQLException.class).hasMessageContaining("ux_invoice_keys_nip_p2");
+        assertThatThrownBy(() -> execute("""
+                INSERT INTO invoices (id, nip, p1, p2, created_at)
+                VALUES (nextval('invoices_seq'), 'PL97813992', DATE '2024-01-01', 'FV/4', localtimestamp - INTERVAL '1 day')
+                """)).isInstanceOf(SQLException.class).hasMessageContaining("ck_invoices_nip");
+    }
+
+    private static void migrate(String target) {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .target(target != null ? target : "latest")
+                .load()
+                .migrate();
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static long queryLong(String sql) throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
@@ -0,0 +1,102 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.Impl.InvoiceBatchWriter.Outcome;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
+import com.invoice.invoice.Service.SellerSummaryService;
+import com.invoice.invoice.Xml.XmlConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceBatchWriterTest {
+
+    private final InvoiceRepository repo = mock(InvoiceRepository.class);
+    private final InvoiceDeduplicator deduplicator = mock(InvoiceDeduplicator.class);
+    private final SellerSummaryService sellerSummaries = mock(SellerSummaryService.class);
+    private final AtomicLong ids = new AtomicLong(100);
+    private final InvoiceBatchWriter writer;
+
+    InvoiceBatchWriterTest() {
+        InvoiceProperties properties = new InvoiceProperties();
+        XmlConcurrencyLimiter xmlLimiter = new XmlConcurrencyLimiter(properties);
+        writer = new InvoiceBatchWriter(repo, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                deduplicator, sellerSummaries,
+                new InvoiceMetrics(new SimpleMeterRegistry(), xmlLimiter), mock(InvoiceOutbox.class));
+    }
+
+    @Test
+    void copiesWithinTheChunkAreAnsweredFromTheFirstOne() {
+        when(repo.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Invoice> invoices = invocation.getArgument(0);
+            invoices.forEach(invoice -> invoice.setId(ids.incrementAndGet()));
+            return invoices;
+        });
+        Invoice first = invoice("h1", "FV/1");
+        Invoice copy = invoice("h1", "FV/1");
+        Invoice other = invoice("h2", "FV/2");
+        Invoice reusedNumber = invoice("h3", "FV/2");
+
+        List<InvoiceBatchWriter.Result> results = writer.write(List.of(first, copy, other, reusedNumber));
+
+        verify(repo).saveAll(List.of(first, other));
+        verify(sellerSummaries).invoicesSaved(List.of(first, other));
+        assertThat(results).extracting(InvoiceBatchWriter.Result::outcome)
+                .containsExactly(Outcome.SAVED, Outcome.DUPLICATE, Outcome.SAVED, Outcome.FAILED);
+        assertThat(copy.getId()).isEqualTo(first.getId());
+        assertThat(results.get(3).message()).contains("FV/2", "id " + other.getId());
+        assertThat(reusedNumber.getId()).isNull();
+    }
+
+    @Test
+    void rowByRowRetryTellsDuplicatesFromConflicts() {
+        when(repo.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("ux_invoice_keys"));
+        Invoice stored = invoice("h1", "FV/1");
+        Invoice conflicting = invoice("h2", "FV/2");
+        Invoice fresh = invoice("h3", "FV/3");
+        when(repo.save(same(stored))).thenThrow(new DataIntegrityViolationException("ux_invoice_keys_content_hash"));
+        when(repo.save(same(conflicting))).thenThrow(new DataIntegrityViolationException("ux_invoice_keys_nip_p2"));
+        when(repo.save(same(fresh))).thenAnswer(invocation -> {
+            fresh.setId(ids.incrementAndGet());
+            return fresh;
+        });
+        when(deduplicator.findStored(same(stored))).thenReturn(Optional.of(7L));
+        when(deduplicator.findConflicting(any(Invoice.class))).thenReturn(Optional.of(8L));
+
+        List<InvoiceBatchWriter.Result> results = writer.write(List.of(stored, conflicting, fresh));
+
+        assertThat(results).extracting(InvoiceBatchWriter.Result::outcome)
+                .containsExactly(Outcome.DUPLICATE, Outcome.FAILED, Outcome.SAVED);
+        assertThat(stored.getId()).isEqualTo(7L);
+        assertThat(results.get(1).message()).contains("id 8");
+        assertThat(conflicting.getId()).isNull();
+        assertThat(fresh.getId()).isNotNull();
+        verify(sellerSummaries).invoicesSaved(List.of(fresh));
+    }
+
+    private static Invoice invoice(String contentHash, String p2) {
+        Invoice invoice = new Invoice();
+        invoice.setNip("5260250274");
+        invoice.setP2(p2);
+        invoice.setContentHash(contentHash);
+        return invoice;
+    }
+}
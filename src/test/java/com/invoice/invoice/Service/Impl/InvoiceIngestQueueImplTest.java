@@ -0,0 +1,206 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Exception.CapacityExceededException;
+import com.invoice.invoice.Exception.PayloadTooLargeException;
+import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Service.InvoiceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceIngestQueueImplTest {
+
+    private static final String PAYLOAD = "PEZha3R1cmEvPg";
+
+    @TempDir
+    Path journal;
+
+    private final InvoiceService invoiceService = mock(InvoiceService.class);
+    private final InvoiceProperties properties = new InvoiceProperties();
+    private InvoiceIngestQueueImpl queue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void journalsPayloadAndRecordsTheResult() throws Exception {
+        when(invoiceService.processInvoiceStream(any(InputStream.class)))
+                .thenReturn(new InvoiceDto.InvoiceResponse("Invoice saved successfully", 42L));
+        start(1, 10);
+
+        UUID ticket = submit();
+
+        InvoiceDto.TicketResponse status = awaitFinished(ticket);
+        assertThat(status.getStatus()).isEqualTo(InvoiceDto.TicketStatus.SAVED);
+        assertThat(status.getInvoiceId()).isEqualTo(42L);
+        assertThat(journal.resolve(ticket + ".pending")).doesNotExist();
+        assertThat(journal.resolve(ticket + ".status")).exists();
+    }
+
+    @Test
+    void recordsInvalidInvoicesAsFailedAndRetriesTransientErrors() throws Exception {
+        when(invoiceService.processInvoiceStream(any(InputStream.class)))
+                .thenThrow(new TransientDataAccessResourceException("connection refused"))
+                .thenThrow(new XmlValidationException("cvc-complex-type.2.4.a"));
+        start(1, 10);
+
+        UUID ticket = submit();
+
+        InvoiceDto.TicketResponse status = awaitFinished(ticket);
+        assertThat(status.getStatus()).isEqualTo(InvoiceDto.TicketStatus.FAILED);
+        assertThat(status.getMessage()).contains("cvc-complex-type");
+        verify(invoiceService, times(2)).processInvoiceStream(any(InputStream.class));
+    }
+
+    @Test
+    void rejectsOversizedAndMalformedPayloadsWithoutJournaling() throws Exception {
+        properties.getIngest().setMaxPayloadSize(DataSize.ofBytes(30));
+        start(1, 10);
+
+        assertThatThrownBy(() -> queue.submit("QUJD".repeat(20))).isInstanceOf(PayloadTooLargeException.class);
+        assertThatThrownBy(() -> queue.submit("QUJD*")).hasMessageContaining("position 4");
+        try (var files = Files.list(journal)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsSubmissionsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(invoiceService.processInvoiceStream(any(InputStream.class))).thenAnswer(invocation -> {
+            processing.countDown();
+            release.await();
+            return new InvoiceDto.InvoiceResponse("Invoice saved successfully", 1L);
+        });
+        start(1, 1);
+
+        UUID first = submit();
+        assertThat(processing.await(5, TimeUnit.SECONDS)).isTrue();
+        UUID second = submit();
+
+        assertThatThrownBy(() -> queue.submit(PAYLOAD)).isInstanceOf(CapacityExceededException.class);
+        assertThat(queue.status(second)).map(InvoiceDto.TicketResponse::getStatus).contains(InvoiceDto.TicketStatus.QUEUED);
+
+        release.countDown();
+        assertThat(awaitFinished(first).getStatus()).isEqualTo(InvoiceDto.TicketStatus.SAVED);
+        assertThat(awaitFinished(second).getStatus()).isEqualTo(InvoiceDto.TicketStatus.SAVED);
+    }
+
+    @Test
+    void requeuesJournaledPayloadsOnceBeforeAcceptingNewOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(invoiceService.processInvoiceStream(any(InputStream.class))).thenAnswer(invocation -> {
+            release.await();
+            return new InvoiceDto.InvoiceResponse("Invoice saved successfully", 1L);
+        });
+        // One file in the worker, one in the queue, and the recovery thread blocked on the third.
+        UUID[] journaled = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        for (UUID ticket : journaled) {
+            Files.writeString(journal.resolve(ticket + ".pending"), PAYLOAD, StandardCharsets.US_ASCII);
+        }
+        start(1, 1);
+
+        assertThatThrownBy(() -> queue.submit(PAYLOAD))
+                .isInstanceOf(CapacityExceededException.class)
+                .hasMessageContaining("re-queuing");
+
+        release.countDown();
+        for (UUID ticket : journaled) {
+            assertThat(awaitFinished(ticket).getStatus()).isEqualTo(InvoiceDto.TicketStatus.SAVED);
+        }
+        UUID submitted = submit();
+        assertThat(awaitFinished(submitted).getStatus()).isEqualTo(InvoiceDto.TicketStatus.SAVED);
+        verify(invoiceService, times(4)).processInvoiceStream(any(InputStream.class));
+    }
+
+    @Test
+    void keepsFinishedStatusesForTheRetentionPeriod() throws Exception {
+        when(invoiceService.processInvoiceStream(any(InputStream.class)))
+                .thenReturn(new InvoiceDto.InvoiceResponse("Invoice saved successfully", 1L));
+        properties.getIngest().setStatusRetention(Duration.ofHours(1));
+        start(1, 10);
+        UUID expired = submit();
+        UUID recent = submit();
+        awaitFinished(expired);
+        awaitFinished(recent);
+        Files.setLastModifiedTime(journal.resolve(expired + ".status"),
+                FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        queue.purgeExpiredStatuses();
+
+        assertThat(queue.status(expired)).isEmpty();
+        assertThat(queue.status(recent)).map(InvoiceDto.TicketResponse::getStatus).contains(InvoiceDto.TicketStatus.SAVED);
+    }
+
+    private void start(int workers, int capacity) throws IOException {
+        InvoiceProperties.Ingest ingest = properties.getIngest();
+        ingest.setJournalDirectory(journal.toString());
+        ingest.setWorkers(workers);
+        ingest.setQueueCapacity(capacity);
+        queue = new InvoiceIngestQueueImpl(invoiceService, new ObjectMapper().findAndRegisterModules(), properties);
+        queue.start();
+    }
+
+    /**
+     * Submits once the startup recovery has let submissions in.
+     */
+    private UUID submit() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                return queue.submit(PAYLOAD).getTicket();
+            } catch (CapacityExceededException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private InvoiceDto.TicketResponse awaitFinished(UUID ticket) throws InterruptedException {
+        await(() -> queue.status(ticket)
+                .map(status -> status.getCompletedAt() != null)
+                .orElse(false));
+        return queue.status(ticket).orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Config.InvoiceProperties.ValidationMode;
+import com.invoice.invoice.Dto.InvoiceDto;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Exception.ConflictException;
+import com.invoice.invoice.Exception.XmlValidationException;
+import com.invoice.invoice.Metrics.InvoiceMetrics;
+import com.invoice.invoice.Outbox.InvoiceOutbox;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import com.invoice.invoice.Service.InvoiceDeduplicator;
+import com.invoice.invoice.Service.SchemaRegistry;
+import com.invoice.invoice.Service.SellerSummaryService;
+import com.invoice.invoice.Xml.XmlConcurrencyLimiter;
+import com.invoice.invoice.Xml.XmlParsers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validation modes end to end through {@code processXmlStream}, with and without a registered
+ * schema, and how a rejected insert is answered. The test schema requires the {@code Naglowek}
+ * header, which {@code minimal.xml} lacks.
+ */
+class InvoiceServiceImplTest {
+
+    private static final String NAMESPACE_URI = "http://crd.gov.pl/wzor/2023/06/29/12648/";
+
+    private final InvoiceRepository repo = mock(InvoiceRepository.class);
+    private final SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+    private final InvoiceDeduplicator deduplicator = mock(InvoiceDeduplicator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private XmlConcurrencyLimiter xmlLimiter;
+
+    @ParameterizedTest
+    @EnumSource(value = InvoiceProperties.ExtractionMode.class)
+    void strictRejectsInvalidInvoices(InvoiceProperties.ExtractionMode extraction) throws Exception {
+        registerSchema();
+        InvoiceServiceImpl service = service(ValidationMode.STRICT, true, extraction);
+
+        assertThatThrownBy(() -> service.processXmlStream(invoice("minimal.xml"), null))
+                .isInstanceOf(XmlValidationException.class);
+        assertThat(service.processXmlStream(invoice("fa2-full.xml"), null).getMessage())
+                .isEqualTo("Invoice saved successfully");
+        verify(repo).save(any(Invoice.class));
+    }
+
+    @Test
+    void strictRefusesToStartWithoutSchema() {
+        assertThatThrownBy(() -> service(ValidationMode.STRICT, true, InvoiceProperties.ExtractionMode.STREAMING))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(NAMESPACE_URI);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = InvoiceProperties.ExtractionMode.class)
+    void strictRejectsInvoicesWhoseSchemaDisappeared(InvoiceProperties.ExtractionMode extraction) {
+        // Registered at startup, then removed by a reload; prevalidation is off, so only the
+        // validation step itself can notice.
+        when(schemaRegistry.isRegistered(NAMESPACE_URI)).thenReturn(true);
+        InvoiceServiceImpl service = service(ValidationMode.STRICT, false, extraction);
+
+        assertThatThrownBy(() -> service.processXmlStream(invoice("fa2-full.xml"), null))
+                .isInstanceOf(XmlValidationException.class)
+                .hasMessageContaining("No schema registered");
+        verify(repo, never()).save(any(Invoice.class));
+    }
+
+    @Test
+    void lenientSavesInvalidInvoicesAndCountsThem() throws Exception {
+        registerSchema();
+        InvoiceServiceImpl service = service(ValidationMode.LENIENT, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        service.processXmlStream(invoice("minimal.xml"), null);
+
+        verify(repo).save(any(Invoice.class));
+        assertThat(meterRegistry.counter("invoice.validation.ignored").count()).isEqualTo(1);
+    }
+
+    @Test
+    void lenientSavesWithoutSchema() {
+        InvoiceServiceImpl service = service(ValidationMode.LENIENT, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        service.processXmlStream(invoice("minimal.xml"), null);
+
+        verify(repo).save(any(Invoice.class));
+        assertThat(meterRegistry.counter("invoice.validation.ignored").count()).isZero();
+    }
+
+    @Test
+    void offSkipsValidationWithSchema() throws Exception {
+        registerSchema();
+        InvoiceServiceImpl service = service(ValidationMode.OFF, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        service.processXmlStream(invoice("minimal.xml"), null);
+
+        verify(repo).save(any(Invoice.class));
+        verify(schemaRegistry, never()).borrowValidator(anyString());
+    }
+
+    @Test
+    void offSavesWithoutSchema() {
+        InvoiceServiceImpl service = service(ValidationMode.OFF, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        service.processXmlStream(invoice("minimal.xml"), null);
+
+        verify(repo).save(any(Invoice.class));
+    }
+
+    @Test
+    void sameContentAlreadyStoredIsADuplicate() {
+        when(repo.save(any(Invoice.class))).thenThrow(new DataIntegrityViolationException("ux_invoice_keys_content_hash"));
+        when(deduplicator.findStored(any(Invoice.class))).thenReturn(Optional.of(7L));
+        InvoiceServiceImpl service = service(ValidationMode.OFF, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        InvoiceDto.InvoiceResponse response = service.processXmlStream(invoice("minimal.xml"), null);
+
+        assertThat(response.getId()).isEqualTo(7L);
+        assertThat(response.getMessage()).isEqualTo("Invoice already processed");
+        verify(deduplicator, never()).findConflicting(any(Invoice.class));
+    }
+
+    @Test
+    void differentInvoiceReusingSellerAndNumberConflicts() {
+        when(repo.save(any(Invoice.class))).thenThrow(new DataIntegrityViolationException("ux_invoice_keys_nip_p2"));
+        when(deduplicator.findConflicting(any(Invoice.class))).thenReturn(Optional.of(7L));
+        InvoiceServiceImpl service = service(ValidationMode.OFF, true, InvoiceProperties.ExtractionMode.STREAMING);
+
+        assertThatThrownBy(() -> service.processXmlStream(invoice("minimal.xml"), null))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("id 7");
+    }
+
+    @Test
+    void slowUploadsHoldNoXmlPermit() throws Exception {
+        InvoiceServiceImpl service = service(ValidationMode.OFF, true, InvoiceProperties.ExtractionMode.STREAMING);
+        int permits = xmlLimiter.availablePermits();
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] xml = invoice("fa2-full.xml").readAllBytes();
+        InputStream upload = new SequenceInputStream(new ByteArrayInputStream(xml, 0, xml.length / 2),
+                new FilterInputStream(new ByteArrayInputStream(xml, xml.length / 2, xml.length - xml.length / 2)) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        stalled.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        return super.read(b, off, len);
+                    }
+                });
+        CompletableFuture<InvoiceDto.InvoiceResponse> slow =
+                CompletableFuture.supplyAsync(() -> service.processXmlStream(upload, null));
+
+        try {
+            assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(xmlLimiter.availablePermits()).isEqualTo(permits);
+            assertThat(service.processXmlStream(invoice("minimal.xml"), null).getMessage())
+                    .isEqualTo("Invoice saved successfully");
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS).getMessage()).isEqualTo("Invoice saved successfully");
+    }
+
+    private void registerSchema() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new ClassPathResource("schemas/faktura-header.xsd").getURL());
+        when(schemaRegistry.isRegistered(NAMESPACE_URI)).thenReturn(true);
+        when(schemaRegistry.borrowValidator(NAMESPACE_URI)).thenAnswer(invocation -> Optional.of(lease(schema.newValidator())));
+    }
+
+    private InvoiceServiceImpl service(ValidationMode mode, boolean prevalidate, InvoiceProperties.ExtractionMode extraction) {
+        InvoiceProperties properties = new InvoiceProperties();
+        properties.getValidation().setMode(mode);
+        properties.getValidation().setPrevalidate(prevalidate);
+        properties.getExtraction().setMode(extraction);
+        xmlLimiter = new XmlConcurrencyLimiter(properties);
+        return new InvoiceServiceImpl(repo, new XmlServiceImpl(schemaRegistry, properties, new XmlParsers()), properties,
+                xmlLimiter, deduplicator, new InvoiceMetrics(meterRegistry, xmlLimiter),
+                mock(SellerSummaryService.class), mock(InvoiceOutbox.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    private static ByteArrayInputStream invoice(String name) {
+        try {
+            return new ByteArrayInputStream(new ClassPathResource("invoices/" + name).getContentAsByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SchemaRegistry.ValidatorLease lease(Validator validator) {
+        return new SchemaRegistry.ValidatorLease() {
+            @Override
+            public Validator validator() {
+                return validator;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Service.SchemaRegistry;
+import com.invoice.invoice.Xml.XmlParsers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The bundled test schema requires the {@code Naglowek} header, which {@code minimal.xml} lacks;
+ * the permissive one dropped into the reload directory accepts it.
+ */
+class SchemaRegistryImplTest {
+
+    private static final String NAMESPACE_URI = "http://crd.gov.pl/wzor/2023/06/29/12648/";
+    private static final String OTHER_NAMESPACE_URI = "urn:invoice:test:other";
+
+    @TempDir
+    Path directory;
+
+    private final InvoiceProperties properties = new InvoiceProperties();
+
+    @Test
+    void registersBundledSchemasByTargetNamespace() throws Exception {
+        SchemaRegistryImpl registry = registry(false);
+
+        assertThat(registry.isRegistered(NAMESPACE_URI)).isTrue();
+        assertThat(registry.isRegistered(OTHER_NAMESPACE_URI)).isFalse();
+        assertThat(registry.borrowValidator(OTHER_NAMESPACE_URI)).isEmpty();
+        validate(registry, "fa2-full.xml");
+        assertThatThrownBy(() -> validate(registry, "minimal.xml")).isInstanceOf(SAXException.class);
+    }
+
+    @Test
+    void directorySchemasOverrideBundledOnesUntilDeleted() throws Exception {
+        SchemaRegistryImpl registry = registry(true);
+        Path lax = copySchema("faktura-lax.xsd");
+        Path other = writeOtherSchema();
+
+        registry.reloadChangedSchemas();
+
+        validate(registry, "minimal.xml");
+        assertThat(registry.isRegistered(OTHER_NAMESPACE_URI)).isTrue();
+
+        Files.delete(lax);
+        Files.delete(other);
+        registry.reloadChangedSchemas();
+
+        assertThatThrownBy(() -> validate(registry, "minimal.xml")).isInstanceOf(SAXException.class);
+        assertThat(registry.isRegistered(OTHER_NAMESPACE_URI)).isFalse();
+        assertThat(registry.isRegistered(NAMESPACE_URI)).isTrue();
+    }
+
+    @Test
+    void keepsThePreviousSchemasWhenAChangedFileDoesNotCompile() throws Exception {
+        SchemaRegistryImpl registry = registry(true);
+        Path lax = copySchema("faktura-lax.xsd");
+        registry.reloadChangedSchemas();
+
+        Files.writeString(lax, Files.readString(lax).replace("xs:any ", "xs:unknown "), StandardCharsets.UTF_8);
+        registry.reloadChangedSchemas();
+
+        validate(registry, "minimal.xml");
+    }
+
+    @Test
+    void readersNeverMissASchemaDuringAReload() throws Exception {
+        SchemaRegistryImpl registry = registry(true);
+        copySchema("faktura-lax.xsd");
+        writeOtherSchema();
+        registry.reloadChangedSchemas();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                if (!registry.isRegistered(NAMESPACE_URI) || !registry.isRegistered(OTHER_NAMESPACE_URI)) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 50; i++) {
+                registry.reload();
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        assertThat(misses).hasValue(0);
+        validate(registry, "minimal.xml");
+    }
+
+    private SchemaRegistryImpl registry(boolean withDirectory) {
+        properties.getSchema().setLocations("classpath*:schemas/faktura-header.xsd");
+        if (withDirectory) {
+            properties.getSchema().setReloadDirectory(directory.toString());
+        }
+        SchemaRegistryImpl registry = new SchemaRegistryImpl(properties, new PathMatchingResourcePatternResolver(),
+                new XmlParsers());
+        registry.init();
+        return registry;
+    }
+
+    private Path copySchema(String name) throws IOException {
+        Path target = directory.resolve(name);
+        try (InputStream in = new ClassPathResource("schemas/" + name).getInputStream()) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    private Path writeOtherSchema() throws IOException {
+        return Files.writeString(directory.resolve("other.xsd"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema" targetNamespace="%s">
+                    <xs:element name="Dokument" type="xs:string"/>
+                </xs:schema>
+                """.formatted(OTHER_NAMESPACE_URI), StandardCharsets.UTF_8);
+    }
+
+    private static void validate(SchemaRegistry registry, String invoice) throws Exception {
+        try (SchemaRegistry.ValidatorLease lease = registry.borrowValidator(NAMESPACE_URI).orElseThrow();
+             InputStream in = new ClassPathResource("invoices/" + invoice).getInputStream()) {
+            lease.validator().validate(new StreamSource(in));
+        }
+    }
+}
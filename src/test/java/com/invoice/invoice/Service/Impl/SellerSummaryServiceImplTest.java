@@ -0,0 +1,40 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Cache.CacheInvalidationChannel;
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Entity.Invoice;
+import com.invoice.invoice.Repository.InvoiceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SellerSummaryServiceImplTest {
+
+    private final CacheInvalidationChannel invalidationChannel = mock(CacheInvalidationChannel.class);
+    private final SellerSummaryServiceImpl service = new SellerSummaryServiceImpl(mock(InvoiceRepository.class),
+            invalidationChannel, new InvoiceProperties(), new SimpleMeterRegistry());
+
+    @Test
+    void batchPublishesOneInvalidationPerSeller() {
+        service.invoicesSaved(List.of(invoice(1, "9781399259"), invoice(2, "5260250274"),
+                invoice(3, "9781399259"), invoice(4, "9781399259")));
+
+        verify(invalidationChannel).publish(SellerSummaryServiceImpl.CACHE_NAME, "9781399259");
+        verify(invalidationChannel).publish(SellerSummaryServiceImpl.CACHE_NAME, "5260250274");
+        verify(invalidationChannel, times(2)).publish(anyString(), anyString());
+    }
+
+    private static Invoice invoice(long id, String nip) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setNip(nip);
+        invoice.setP2("FV/" + id);
+        return invoice;
+    }
+}
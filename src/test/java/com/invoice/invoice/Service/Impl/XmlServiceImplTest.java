@@ -0,0 +1,164 @@
+package com.invoice.invoice.Service.Impl;
+
+import com.invoice.invoice.Config.InvoiceProperties;
+import com.invoice.invoice.Exception.PrevalidationException;
+import com.invoice.invoice.Service.SchemaRegistry;
+import com.invoice.invoice.Service.XmlService;
+import com.invoice.invoice.Xml.ExtractedFields;
+import com.invoice.invoice.Xml.XmlParsers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.w3c.dom.Document;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class XmlServiceImplTest {
+
+    private static final String NAMESPACE_URI = "http://crd.gov.pl/wzor/2023/06/29/12648/";
+
+    private XmlServiceImpl xmlService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new ClassPathResource("schemas/faktura-lax.xsd").getURL());
+        SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+        when(schemaRegistry.borrowValidator(NAMESPACE_URI)).thenAnswer(invocation -> Optional.of(lease(schema.newValidator())));
+        when(schemaRegistry.isRegistered(NAMESPACE_URI)).thenReturn(true);
+
+        InvoiceProperties properties = new InvoiceProperties();
+        xmlService = new XmlServiceImpl(schemaRegistry, properties, new XmlParsers());
+    }
+
+    private static SchemaRegistry.ValidatorLease lease(Validator validator) {
+        return new SchemaRegistry.ValidatorLease() {
+            @Override
+            public Validator validator() {
+                return validator;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    static Stream<Resource> corpus() throws IOException {
+        return Arrays.stream(new PathMatchingResourcePatternResolver().getResources("classpath:invoices/*.xml"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void streamingAndDomExtractionAgree(Resource invoice) throws IOException {
+        byte[] xml = invoice.getContentAsByteArray();
+
+        ExtractedFields streamed = xmlService.extractFields(new ByteArrayInputStream(xml));
+        Document document = xmlService.parseXml(new ByteArrayInputStream(xml));
+        ExtractedFields dom = xmlService.extractFields(document);
+
+        assertThat(streamed.asMap()).isEqualTo(dom.asMap());
+        assertThat(streamed.get(XmlService.FIELD_NIP)).isEqualTo(xmlService.extractNip(document));
+        assertThat(streamed.get(XmlService.FIELD_P1)).isEqualTo(xmlService.extractP1(document));
+        assertThat(streamed.get(XmlService.FIELD_P2)).isEqualTo(xmlService.extractP2(document));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void singlePassValidationAndExtractionAgreeWithStreaming(Resource invoice) throws IOException {
+        byte[] xml = invoice.getContentAsByteArray();
+
+        ExtractedFields streamed = xmlService.extractFields(new ByteArrayInputStream(xml));
+        ExtractedFields validated = xmlService.validateAndExtract(new ByteArrayInputStream(xml), e -> {
+            throw e;
+        });
+
+        assertThat(validated.asMap()).isEqualTo(streamed.asMap());
+    }
+
+    @Test
+    void decodesBase64WhileStreaming() throws IOException {
+        byte[] xml = new PathMatchingResourcePatternResolver().getResource("classpath:invoices/fa2-full.xml")
+                .getContentAsByteArray();
+        InputStream base64 = new ByteArrayInputStream(Base64.getMimeEncoder().encode(xml));
+
+        ExtractedFields fields = xmlService.validateAndExtract(xmlService.decodeBase64(base64), e -> {
+            throw e;
+        });
+
+        assertThat(fields.get(XmlService.FIELD_NIP)).isEqualTo("9781399259");
+        assertThat(fields.get(XmlService.FIELD_BUYER_NIP)).isEqualTo("5260250274");
+    }
+
+    @Test
+    void prevalidationRejectsForeignDocumentsFromTheirHead() throws IOException {
+        byte[] xml = new PathMatchingResourcePatternResolver().getResource("classpath:invoices/fa2-full.xml")
+                .getContentAsByteArray();
+        byte[] foreign = "<Order xmlns=\"urn:example\"><Id>1</Id></Order>".getBytes(StandardCharsets.UTF_8);
+
+        InputStream accepted = xmlService.prevalidate(new ByteArrayInputStream(xml), true);
+
+        assertThat(accepted.readAllBytes()).isEqualTo(xml);
+        assertThatThrownBy(() -> xmlService.prevalidate(new ByteArrayInputStream(foreign), true))
+                .isInstanceOfSatisfying(PrevalidationException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("root_element"));
+    }
+
+    @Test
+    void extractsTotalsAndLinesInTheSamePass() throws IOException {
+        byte[] xml = new PathMatchingResourcePatternResolver().getResource("classpath:invoices/fa2-full.xml")
+                .getContentAsByteArray();
+
+        ExtractedFields fields = xmlService.validateAndExtract(new ByteArrayInputStream(xml), e -> {
+            throw e;
+        });
+
+        assertThat(fields.get(XmlService.FIELD_CURRENCY)).isEqualTo("PLN");
+        assertThat(fields.get("P_13_1")).isEqualTo("300.00");
+        assertThat(fields.get("P_13_2")).isNull();
+        assertThat(fields.get(XmlService.FIELD_GROSS_TOTAL)).isEqualTo("369.00");
+        assertThat(fields.rows(XmlService.GROUP_LINES))
+                .extracting(line -> line.get(XmlService.LINE_NUMBER), line -> line.get(XmlService.LINE_NET_AMOUNT))
+                .containsExactly(tuple("1", "200.00"), tuple("2", "100.00"));
+        assertThat(xmlService.extractFields(xmlService.parseXml(new ByteArrayInputStream(xml)))
+                .rows(XmlService.GROUP_LINES)).hasSize(2);
+    }
+
+    @Test
+    void streamingExtractionStopsAfterLastField() throws IOException {
+        String xml = """
+                <Faktura xmlns="http://crd.gov.pl/wzor/2023/06/29/12648/">
+                  <Podmiot1><DaneIdentyfikacyjne><NIP>9781399259</NIP></DaneIdentyfikacyjne></Podmiot1>
+                  <Podmiot2><DaneIdentyfikacyjne><NIP>5260250274</NIP></DaneIdentyfikacyjne></Podmiot2>
+                  <Fa><KodWaluty>PLN</KodWaluty><P_1>2023-08-31</P_1><P_2>FV/1</P_2></Fa>
+                """;
+
+        try (InputStream in = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
+            ExtractedFields fields = xmlService.extractFields(in);
+
+            assertThat(fields.get(XmlService.FIELD_P2)).isEqualTo("FV/1");
+            assertThat(fields.get(XmlService.FIELD_CURRENCY)).isEqualTo("PLN");
+        }
+    }
+}